@@ -0,0 +1,182 @@
+package info.kgeorgiy.ja.zakharov.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Measurements and command-line arguments shared by benchmarks.
+ */
+public final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    /**
+     * Returns heap used after garbage collection.
+     *
+     * @return used heap in bytes
+     */
+    public static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+
+    /**
+     * Returns total number of bytes allocated by all live threads or {@code -1} if JVM doesn't report them.
+     *
+     * @return allocated bytes
+     */
+    public static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = threads();
+        return threads == null ? -1 : Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+                .filter(bytes -> bytes > 0)
+                .sum();
+    }
+
+    /**
+     * Returns number of bytes allocated by current thread or {@code -1} if JVM doesn't report them.
+     *
+     * @return allocated bytes
+     */
+    public static long threadAllocatedBytes() {
+        com.sun.management.ThreadMXBean threads = threads();
+        return threads == null ? -1 : threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Positional command-line arguments with defaults. Invalid arguments are replaced by defaults and remembered,
+     * so all of them are read first and then checked at once by {@link #validate()}.
+     */
+    public static final class Arguments {
+        private final String[] args;
+        private final String usage;
+        private boolean valid;
+
+        /**
+         * Creates arguments, that are invalid if there are more than {@code max} of them or some are {@code null}.
+         *
+         * @param args  command-line arguments
+         * @param max   maximal number of arguments
+         * @param usage message printed if arguments are invalid
+         */
+        public Arguments(String[] args, int max, String usage) {
+            this.usage = usage;
+            this.valid = args != null && args.length <= max && Arrays.stream(args).noneMatch(Objects::isNull);
+            this.args = valid ? args : new String[0];
+        }
+
+        /**
+         * Returns argument at {@code index} parsed by {@code parser}, or parsed {@code defaultValue}
+         * if it is absent or invalid: not parsed or not satisfying {@code condition}.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument, that should be valid
+         * @param parser       parser of argument, that throws {@link IllegalArgumentException} on invalid one
+         * @param condition    condition of valid argument
+         * @param <T>          type of argument
+         * @return parsed argument
+         */
+        public <T> T get(int index, String defaultValue, Function<String, T> parser, Predicate<? super T> condition) {
+            if (index < args.length) {
+                try {
+                    T value = parser.apply(args[index]);
+                    if (condition.test(value)) {
+                        return value;
+                    }
+                } catch (IllegalArgumentException ignored) {
+                    // Reported by validate
+                }
+                valid = false;
+            }
+            return parser.apply(defaultValue);
+        }
+
+        /**
+         * Returns argument at {@code index} or {@code defaultValue} if it is absent.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument
+         * @return argument
+         */
+        public String string(int index, String defaultValue) {
+            return get(index, defaultValue, Function.identity(), value -> true);
+        }
+
+        /**
+         * Returns positive {@code int} argument at {@code index}.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument
+         * @return argument
+         */
+        public int positive(int index, int defaultValue) {
+            return get(index, Integer.toString(defaultValue), Integer::parseInt, value -> value > 0);
+        }
+
+        /**
+         * Returns non-negative {@code int} argument at {@code index}.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument
+         * @return argument
+         */
+        public int nonNegative(int index, int defaultValue) {
+            return get(index, Integer.toString(defaultValue), Integer::parseInt, value -> value >= 0);
+        }
+
+        /**
+         * Returns positive {@code long} argument at {@code index}.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument
+         * @return argument
+         */
+        public long positiveLong(int index, long defaultValue) {
+            return get(index, Long.toString(defaultValue), Long::parseLong, value -> value > 0);
+        }
+
+        /**
+         * Returns non-negative {@code long} argument at {@code index}.
+         *
+         * @param index        position of argument
+         * @param defaultValue value of absent argument
+         * @return argument
+         */
+        public long nonNegativeLong(int index, long defaultValue) {
+            return get(index, Long.toString(defaultValue), Long::parseLong, value -> value >= 0);
+        }
+
+        /**
+         * Marks arguments invalid unless {@code condition} holds, used for conditions on several arguments.
+         *
+         * @param condition condition of valid arguments
+         */
+        public void check(boolean condition) {
+            valid &= condition;
+        }
+
+        /**
+         * Checks that all arguments read so far are valid, otherwise prints usage to {@link System#err}.
+         *
+         * @return whether arguments are valid
+         */
+        public boolean validate() {
+            if (!valid) {
+                System.err.println(usage);
+            }
+            return valid;
+        }
+    }
+}
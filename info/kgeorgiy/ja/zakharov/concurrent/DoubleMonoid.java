@@ -0,0 +1,25 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+import java.util.function.DoubleBinaryOperator;
+
+/**
+ * Monoid over {@code double} values, used by {@link IterativeParallelism} to reduce without boxing.
+ *
+ * @param identity identity element of monoid
+ * @param operator associative operator of monoid
+ */
+public record DoubleMonoid(double identity, DoubleBinaryOperator operator) {
+    /**
+     * Applies operator of monoid to all {@code values} starting with identity.
+     *
+     * @param values values to reduce
+     * @return result of reduction
+     */
+    public double reduce(double[] values) {
+        double result = identity;
+        for (double value : values) {
+            result = operator.applyAsDouble(result, value);
+        }
+        return result;
+    }
+}
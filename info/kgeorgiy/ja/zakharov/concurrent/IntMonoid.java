@@ -0,0 +1,25 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Monoid over {@code int} values, used by {@link IterativeParallelism} to reduce without boxing.
+ *
+ * @param identity identity element of monoid
+ * @param operator associative operator of monoid
+ */
+public record IntMonoid(int identity, IntBinaryOperator operator) {
+    /**
+     * Applies operator of monoid to all {@code values} starting with identity.
+     *
+     * @param values values to reduce
+     * @return result of reduction
+     */
+    public int reduce(int[] values) {
+        int result = identity;
+        for (int value : values) {
+            result = operator.applyAsInt(result, value);
+        }
+        return result;
+    }
+}
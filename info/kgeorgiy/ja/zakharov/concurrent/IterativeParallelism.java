@@ -4,9 +4,15 @@ import info.kgeorgiy.java.advanced.concurrent.AdvancedIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -14,6 +20,10 @@ import java.util.stream.Stream;
  * IterativeParallel class used to compute functions in iterative parallel mode.
  */
 public class IterativeParallelism implements AdvancedIP {
+    private static final IntMonoid INT_SUM = new IntMonoid(0, Integer::sum);
+    private static final int MAX_CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 8;
+
     final ParallelMapper mapper;
 
     /**
@@ -59,10 +69,24 @@ public class IterativeParallelism implements AdvancedIP {
         }
     }
 
-    private <T> List<Stream<T>> splitValues(int count, List<T> values) {
-        List<Stream<T>> data = new ArrayList<>();
-        int blockSize = values.size() / count;
-        int rest = values.size() % count;
+    /**
+     * Half-open range {@code [from, to)} of element indices processed by one worker.
+     *
+     * @param index number of block
+     * @param from  index of first element of block
+     * @param to    index after last element of block
+     */
+    private record Block(int index, int from, int to) {
+    }
+
+    private static int blocksCount(int threads, int size) {
+        return Math.max(1, Math.min(size, threads));
+    }
+
+    private static List<Block> splitBlocks(int count, int size) {
+        List<Block> blocks = new ArrayList<>(count);
+        int blockSize = size / count;
+        int rest = size % count;
         int r = 0;
         for (int i = 0; i < count; i++) {
             int l = r;
@@ -71,29 +95,103 @@ public class IterativeParallelism implements AdvancedIP {
                 --rest;
                 r += 1;
             }
-            data.add(values.subList(l, r).stream());
+            blocks.add(new Block(i, l, r));
+        }
+        return blocks;
+    }
+
+    private <A, R> List<R> runAll(List<A> args, Function<A, R> task) throws InterruptedException {
+        if (mapper != null) {
+            return mapper.map(task, args);
         }
-        return data;
+        List<R> res = new ArrayList<>(Collections.nCopies(args.size(), null));
+        List<Thread> workers = new ArrayList<>();
+        IntStream.range(0, args.size()).forEach(pos ->
+                addAndStart(workers, new Thread(() -> res.set(pos, task.apply(args.get(pos))))));
+        joinThreads(workers);
+        return res;
+    }
+
+    private <R> List<R> runBlocks(int threads, int size, Function<Block, R> task) throws InterruptedException {
+        return runAll(splitBlocks(blocksCount(threads, size), size), task);
     }
 
     private <T, R> R task(int threads, List<T> values,
                           Function<Stream<T>, R> task,
                           Function<Stream<R>, R> collectorResult) throws InterruptedException {
-        threads = Math.max(1, Math.min(values.size(), threads));
-        List<Stream<T>> splitValues = splitValues(threads, values);
-        List<R> res;
-        if (mapper == null) {
-            res = new ArrayList<>(Collections.nCopies(threads, null));
-            List<Thread> workers = new ArrayList<>();
-            IntStream.range(0, splitValues.size()).forEach(pos ->
-                    addAndStart(workers, new Thread(() -> res.set(pos, task.apply(splitValues.get(pos))))));
-            joinThreads(workers);
-        } else {
-            res = mapper.map(task, splitValues);
-        }
+        List<R> res = runBlocks(threads, values.size(),
+                block -> task.apply(values.subList(block.from(), block.to()).stream()));
         return collectorResult.apply(res.stream());
     }
 
+    private static <T> List<T> asList(Object[] array) {
+        return new ResultList<>(array);
+    }
+
+    /**
+     * Growable {@link List} that takes ownership of filled array, so result of {@code filter} and {@code map} is
+     * returned without copying, but can be modified as {@link ArrayList} returned before.
+     *
+     * @param <T> type of elements
+     */
+    private static class ResultList<T> extends AbstractList<T> implements RandomAccess {
+        private Object[] elements;
+        private int size;
+
+        ResultList(Object[] elements) {
+            this.elements = elements;
+            this.size = elements.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T get(int index) {
+            return (T) elements[Objects.checkIndex(index, size)];
+        }
+
+        @Override
+        public T set(int index, T element) {
+            T old = get(index);
+            elements[index] = element;
+            return old;
+        }
+
+        @Override
+        public void add(int index, T element) {
+            Objects.checkIndex(index, size + 1);
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, Math.max(10, size + (size >> 1)));
+            }
+            System.arraycopy(elements, index, elements, index + 1, size - index);
+            elements[index] = element;
+            size++;
+            modCount++;
+        }
+
+        @Override
+        public T remove(int index) {
+            T old = get(index);
+            System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+            elements[--size] = null;
+            modCount++;
+            return old;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Elements of one block that satisfied filter, stored in prefix of {@code buffer}.
+     *
+     * @param buffer array with found elements
+     * @param count  number of found elements
+     */
+    private record Filtered(Object[] buffer, int count) {
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -133,7 +231,7 @@ public class IterativeParallelism implements AdvancedIP {
      */
     @Override
     public <T> int count(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
-        return task(threads, values, stream -> (int) stream.filter(predicate).count(), stream -> stream.mapToInt(Integer::intValue).sum());
+        return mapReduceToInt(threads, values, value -> predicate.test(value) ? 1 : 0, INT_SUM);
     }
 
     /**
@@ -141,9 +239,25 @@ public class IterativeParallelism implements AdvancedIP {
      */
     @Override
     public String join(int threads, List<?> values) throws InterruptedException {
-        return task(threads, values,
-                stream -> stream.map(Objects::toString).collect(Collectors.joining()),
-                stream -> stream.collect(Collectors.joining()));
+        String[] strings = new String[values.size()];
+        List<Long> lengths = runBlocks(threads, values.size(), block -> {
+            long length = 0;
+            int i = block.from();
+            for (Object value : values.subList(block.from(), block.to())) {
+                strings[i] = Objects.toString(value);
+                length += strings[i++].length();
+            }
+            return length;
+        });
+        long length = lengths.stream().mapToLong(Long::longValue).sum();
+        if (length > Integer.MAX_VALUE) {
+            throw new OutOfMemoryError("Joined string is too long: " + length);
+        }
+        StringBuilder sb = new StringBuilder((int) length);
+        for (String string : strings) {
+            sb.append(string);
+        }
+        return sb.toString();
     }
 
     /**
@@ -151,9 +265,23 @@ public class IterativeParallelism implements AdvancedIP {
      */
     @Override
     public <T> List<T> filter(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
-        return task(threads, values,
-                stream -> stream.filter(predicate).collect(Collectors.toList()),
-                stream -> stream.flatMap(Collection::stream).collect(Collectors.toList()));
+        List<Filtered> blocks = runBlocks(threads, values.size(), block -> {
+            Object[] buffer = new Object[block.to() - block.from()];
+            int count = 0;
+            for (T value : values.subList(block.from(), block.to())) {
+                if (predicate.test(value)) {
+                    buffer[count++] = value;
+                }
+            }
+            return new Filtered(buffer, count);
+        });
+        Object[] result = new Object[blocks.stream().mapToInt(Filtered::count).sum()];
+        int pos = 0;
+        for (Filtered block : blocks) {
+            System.arraycopy(block.buffer(), 0, result, pos, block.count());
+            pos += block.count();
+        }
+        return asList(result);
     }
 
     /**
@@ -161,9 +289,15 @@ public class IterativeParallelism implements AdvancedIP {
      */
     @Override
     public <T, U> List<U> map(int threads, List<? extends T> values, Function<? super T, ? extends U> f) throws InterruptedException {
-        return task(threads, values,
-                stream -> stream.map(f).collect(Collectors.toList()),
-                stream -> stream.flatMap(Collection::stream).collect(Collectors.toList()));
+        Object[] result = new Object[values.size()];
+        runBlocks(threads, values.size(), block -> {
+            int i = block.from();
+            for (T value : values.subList(block.from(), block.to())) {
+                result[i++] = f.apply(value);
+            }
+            return null;
+        });
+        return asList(result);
     }
 
     @Override
@@ -178,4 +312,379 @@ public class IterativeParallelism implements AdvancedIP {
                 stream -> stream.map(lift).reduce(monoid.getIdentity(), monoid.getOperator()),
                 stream -> stream.reduce(monoid.getIdentity(), monoid.getOperator()));
     }
+
+    /**
+     * Reduces index range {@code [0, size)} in parallel. Range is split into blocks, {@code block} computes result
+     * for every block {@code [from, to)} and results of blocks are reduced by {@code monoid} in order of blocks.
+     *
+     * @param threads number of concurrent threads
+     * @param size    size of range
+     * @param block   function computing result of block by its bounds
+     * @param monoid  monoid to use
+     * @param <R>     result type
+     * @return results of blocks reduced by provided monoid
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <R> R mapReduceRanges(int threads, int size, BiFunction<Integer, Integer, ? extends R> block,
+                                 Monoid<R> monoid) throws InterruptedException {
+        List<R> results = runBlocks(threads, size, range -> block.apply(range.from(), range.to()));
+        return results.stream().reduce(monoid.getIdentity(), monoid.getOperator());
+    }
+
+    /**
+     * Consecutive elements of source handed out to one worker during dynamic splitting.
+     *
+     * @param index  number of chunk in source order
+     * @param values elements of chunk
+     * @param <T>    type of elements
+     */
+    private record Chunk<T>(long index, Iterator<? extends T> values) {
+    }
+
+    /**
+     * Reduced value of one chunk.
+     *
+     * @param index number of chunk in source order
+     * @param value reduced value
+     * @param <R>   type of value
+     */
+    private record Partial<R>(long index, R value) {
+    }
+
+    /**
+     * Hands out chunks of {@link Iterator} to workers, one chunk at a time.
+     *
+     * @param <T> type of elements
+     */
+    private static class IteratorChunks<T> implements Supplier<Chunk<T>> {
+        private final Iterator<? extends T> iterator;
+        private final int chunkSize;
+        private long index;
+
+        IteratorChunks(Iterator<? extends T> iterator, int chunkSize) {
+            this.iterator = iterator;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized Chunk<T> get() {
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            List<T> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && iterator.hasNext()) {
+                chunk.add(iterator.next());
+            }
+            return new Chunk<>(index++, chunk.iterator());
+        }
+    }
+
+    private static int chunkSize(long size, int threads) {
+        return (int) Math.max(1, Math.min(MAX_CHUNK_SIZE, size / ((long) Math.max(1, threads) * CHUNKS_PER_THREAD)));
+    }
+
+    private static <T> Supplier<Chunk<T>> arrayChunks(T[] values, int chunkSize) {
+        List<T> list = Arrays.asList(values);
+        AtomicInteger next = new AtomicInteger();
+        return () -> {
+            int from = next.getAndUpdate(pos -> Math.min(values.length, pos + chunkSize));
+            if (from == values.length) {
+                return null;
+            }
+            return new Chunk<>(from / chunkSize,
+                    list.subList(from, Math.min(values.length, from + chunkSize)).iterator());
+        };
+    }
+
+    /**
+     * Splits {@code values} by {@link Spliterator#trySplit()} into parts of at most {@code chunkSize} elements,
+     * that are handed out to workers in source order. Parts are traversed by workers without synchronization.
+     */
+    private static <T> Supplier<Chunk<T>> spliteratorChunks(Spliterator<? extends T> values, long chunkSize) {
+        List<Spliterator<? extends T>> parts = new ArrayList<>();
+        Deque<Spliterator<? extends T>> stack = new ArrayDeque<>();
+        stack.push(values);
+        while (!stack.isEmpty()) {
+            Spliterator<? extends T> part = stack.pop();
+            Spliterator<? extends T> prefix = part.estimateSize() > chunkSize ? part.trySplit() : null;
+            if (prefix == null) {
+                parts.add(part);
+            } else {
+                stack.push(part);
+                stack.push(prefix);
+            }
+        }
+        AtomicInteger next = new AtomicInteger();
+        return () -> {
+            int index = next.getAndIncrement();
+            return index < parts.size() ? new Chunk<>(index, Spliterators.iterator(parts.get(index))) : null;
+        };
+    }
+
+    /**
+     * Runs {@code workers} workers, each of them takes next chunk from {@code chunks} while it is idle, so that
+     * elements with different processing cost don't leave workers without work. Results of chunks are combined in
+     * source order.
+     */
+    private <T, R> R dynamicMapReduce(int workers, Supplier<Chunk<T>> chunks,
+                                      Function<? super T, ? extends R> lift, Monoid<R> monoid) throws InterruptedException {
+        BinaryOperator<R> operator = monoid.getOperator();
+        List<List<Partial<R>>> results = runAll(Collections.nCopies(Math.max(1, workers), chunks), source -> {
+            List<Partial<R>> partials = new ArrayList<>();
+            for (Chunk<T> chunk = source.get(); chunk != null; chunk = source.get()) {
+                R result = monoid.getIdentity();
+                for (Iterator<? extends T> values = chunk.values(); values.hasNext(); ) {
+                    result = operator.apply(result, lift.apply(values.next()));
+                }
+                partials.add(new Partial<>(chunk.index(), result));
+            }
+            return partials;
+        });
+        return results.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(Partial::index))
+                .map(Partial::value)
+                .reduce(monoid.getIdentity(), operator);
+    }
+
+    /**
+     * Maps and reduces array {@code values} in parallel. Array is not copied, workers take chunks of it
+     * dynamically, so skewed cost of elements is balanced between threads.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param lift    mapping function
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @param <R>     result type
+     * @return values reduced by provided monoid or identity if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, T[] values, Function<? super T, ? extends R> lift, Monoid<R> monoid)
+            throws InterruptedException {
+        int chunkSize = chunkSize(values.length, threads);
+        int chunks = (values.length + chunkSize - 1) / chunkSize;
+        return dynamicMapReduce(Math.min(threads, chunks), arrayChunks(values, chunkSize), lift, monoid);
+    }
+
+    /**
+     * Maps and reduces elements of {@code values} in parallel. Workers take chunks of elements dynamically,
+     * chunk size is chosen by {@link Spliterator#estimateSize() estimated size} of spliterator.
+     * {@link Spliterator#SIZED SIZED} and {@link Spliterator#SUBSIZED SUBSIZED} spliterators, such as ones of arrays
+     * and lists, are split into chunks by {@link Spliterator#trySplit()} and traversed by workers independently,
+     * other ones are read by one worker at a time, see {@link #mapReduce(int, Iterator, int, Function, Monoid)}.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param lift    mapping function
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @param <R>     result type
+     * @return values reduced by provided monoid or identity if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, Spliterator<? extends T> values, Function<? super T, ? extends R> lift,
+                              Monoid<R> monoid) throws InterruptedException {
+        long size = values.estimateSize();
+        int chunkSize = size == Long.MAX_VALUE ? MAX_CHUNK_SIZE : chunkSize(size, threads);
+        if (values.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)) {
+            long chunks = (size + chunkSize - 1) / chunkSize;
+            return dynamicMapReduce((int) Math.min(threads, chunks), spliteratorChunks(values, chunkSize), lift, monoid);
+        }
+        return mapReduce(threads, Spliterators.iterator(values), chunkSize, lift, monoid);
+    }
+
+    /**
+     * Maps and reduces elements of {@code values} in parallel. Idle workers take next {@code chunkSize}
+     * elements of iterator, iterator itself is accessed by one worker at a time.
+     *
+     * @param threads   number of concurrent threads
+     * @param values    values to reduce
+     * @param chunkSize maximal number of elements taken by worker at once
+     * @param lift      mapping function
+     * @param monoid    monoid to use
+     * @param <T>       value type
+     * @param <R>       result type
+     * @return values reduced by provided monoid or identity if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T, R> R mapReduce(int threads, Iterator<? extends T> values, int chunkSize,
+                              Function<? super T, ? extends R> lift, Monoid<R> monoid) throws InterruptedException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size should be positive: " + chunkSize);
+        }
+        return dynamicMapReduce(threads, new IteratorChunks<T>(values, chunkSize), lift, monoid);
+    }
+
+    /**
+     * Reduces array {@code values} in parallel, see {@link #mapReduce(int, Object[], Function, Monoid)}.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @return values reduced by provided monoid or identity if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> T reduce(int threads, T[] values, Monoid<T> monoid) throws InterruptedException {
+        return mapReduce(threads, values, Function.identity(), monoid);
+    }
+
+    /**
+     * Reduces elements of {@code values} in parallel, see {@link #mapReduce(int, Spliterator, Function, Monoid)}.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @return values reduced by provided monoid or identity if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> T reduce(int threads, Spliterator<? extends T> values, Monoid<T> monoid) throws InterruptedException {
+        return mapReduce(threads, values, Function.identity(), monoid);
+    }
+
+    /**
+     * Reduces {@code values} in parallel with primitive {@code monoid}, without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link IntMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public int reduce(int threads, int[] values, IntMonoid monoid) throws InterruptedException {
+        int[] partial = new int[blocksCount(threads, values.length)];
+        runBlocks(threads, values.length, block -> {
+            int result = monoid.identity();
+            for (int i = block.from(); i < block.to(); i++) {
+                result = monoid.operator().applyAsInt(result, values[i]);
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
+
+    /**
+     * Maps {@code values} to {@code int} and reduces them in parallel with primitive {@code monoid},
+     * without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param lift    mapping function
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @return values reduced by provided monoid or {@link IntMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> int mapReduceToInt(int threads, List<? extends T> values, ToIntFunction<? super T> lift, IntMonoid monoid)
+            throws InterruptedException {
+        int[] partial = new int[blocksCount(threads, values.size())];
+        runBlocks(threads, values.size(), block -> {
+            int result = monoid.identity();
+            for (T value : values.subList(block.from(), block.to())) {
+                result = monoid.operator().applyAsInt(result, lift.applyAsInt(value));
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
+
+    /**
+     * Reduces {@code values} in parallel with primitive {@code monoid}, without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link LongMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public long reduce(int threads, long[] values, LongMonoid monoid) throws InterruptedException {
+        long[] partial = new long[blocksCount(threads, values.length)];
+        runBlocks(threads, values.length, block -> {
+            long result = monoid.identity();
+            for (int i = block.from(); i < block.to(); i++) {
+                result = monoid.operator().applyAsLong(result, values[i]);
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
+
+    /**
+     * Maps {@code values} to {@code long} and reduces them in parallel with primitive {@code monoid},
+     * without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param lift    mapping function
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @return values reduced by provided monoid or {@link LongMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> long mapReduceToLong(int threads, List<? extends T> values, ToLongFunction<? super T> lift, LongMonoid monoid)
+            throws InterruptedException {
+        long[] partial = new long[blocksCount(threads, values.size())];
+        runBlocks(threads, values.size(), block -> {
+            long result = monoid.identity();
+            for (T value : values.subList(block.from(), block.to())) {
+                result = monoid.operator().applyAsLong(result, lift.applyAsLong(value));
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
+
+    /**
+     * Reduces {@code values} in parallel with primitive {@code monoid}, without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param monoid  monoid to use
+     * @return values reduced by provided monoid or {@link DoubleMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public double reduce(int threads, double[] values, DoubleMonoid monoid) throws InterruptedException {
+        double[] partial = new double[blocksCount(threads, values.length)];
+        runBlocks(threads, values.length, block -> {
+            double result = monoid.identity();
+            for (int i = block.from(); i < block.to(); i++) {
+                result = monoid.operator().applyAsDouble(result, values[i]);
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
+
+    /**
+     * Maps {@code values} to {@code double} and reduces them in parallel with primitive {@code monoid},
+     * without boxing of intermediate results.
+     *
+     * @param threads number of concurrent threads
+     * @param values  values to reduce
+     * @param lift    mapping function
+     * @param monoid  monoid to use
+     * @param <T>     value type
+     * @return values reduced by provided monoid or {@link DoubleMonoid#identity() identity} if no values specified
+     * @throws InterruptedException if executing thread was interrupted
+     */
+    public <T> double mapReduceToDouble(int threads, List<? extends T> values, ToDoubleFunction<? super T> lift, DoubleMonoid monoid)
+            throws InterruptedException {
+        double[] partial = new double[blocksCount(threads, values.size())];
+        runBlocks(threads, values.size(), block -> {
+            double result = monoid.identity();
+            for (T value : values.subList(block.from(), block.to())) {
+                result = monoid.operator().applyAsDouble(result, lift.applyAsDouble(value));
+            }
+            partial[block.index()] = result;
+            return null;
+        });
+        return monoid.reduce(partial);
+    }
 }
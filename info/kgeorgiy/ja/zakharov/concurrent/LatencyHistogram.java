@@ -0,0 +1,117 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent histogram of durations in nanoseconds with logarithmic buckets, every power of two is split into
+ * {@value #SUB_BUCKETS} linear sub-buckets, so relative error of percentiles is less than {@code 1/16}.
+ * Recording doesn't allocate and doesn't lock.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Creates empty histogram.
+     */
+    public LatencyHistogram() {
+    }
+
+    private static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos duration in nanoseconds, negative values are recorded as zero
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(index(nanos));
+    }
+
+    /**
+     * Returns copy of current state of histogram.
+     *
+     * @return {@link Snapshot} of histogram
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy);
+    }
+
+    /**
+     * Immutable state of {@link LatencyHistogram}.
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+
+        private Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long value : counts) {
+                total += value;
+            }
+            this.count = total;
+        }
+
+        /**
+         * Returns number of recorded durations.
+         *
+         * @return number of recorded durations
+         */
+        public long count() {
+            return count;
+        }
+
+        /**
+         * Returns duration that is not less than {@code percentile} percents of recorded durations.
+         *
+         * @param percentile percentile in range {@code [0, 100]}
+         * @return highest duration in nanoseconds of bucket containing percentile, or {@code 0} if histogram is empty
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return i + 1 < BUCKETS ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        /**
+         * Returns upper bound of largest recorded duration.
+         *
+         * @return largest duration in nanoseconds, or {@code 0} if histogram is empty
+         */
+        public long max() {
+            return percentile(100);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Monoid over {@code long} values, used by {@link IterativeParallelism} to reduce without boxing.
+ *
+ * @param identity identity element of monoid
+ * @param operator associative operator of monoid
+ */
+public record LongMonoid(long identity, LongBinaryOperator operator) {
+    /**
+     * Applies operator of monoid to all {@code values} starting with identity.
+     *
+     * @param values values to reduce
+     * @return result of reduction
+     */
+    public long reduce(long[] values) {
+        long result = identity;
+        for (long value : values) {
+            result = operator.applyAsLong(result, value);
+        }
+        return result;
+    }
+}
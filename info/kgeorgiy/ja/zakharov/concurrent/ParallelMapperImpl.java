@@ -2,7 +2,15 @@ package info.kgeorgiy.ja.zakharov.concurrent;
 
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import static info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism.addAndStart;
@@ -10,11 +18,35 @@ import static info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism.addAndSt
 
 /**
  * ParallelMapperImpl class is used to compute map function in parallel mode.
+ * Tasks of concurrent {@code map} calls are kept in separate queues, served by workers in weighted round-robin
+ * order, so small calls are not delayed by large ones, see {@link #map(Function, List, int)}.
+ * Number of workers is either fixed or elastic, see {@link #ParallelMapperImpl(int, int, long, TimeUnit, int)}.
+ * Collects metrics of queue and workers, available by {@link #metrics()} and by JMX.
  */
 public class ParallelMapperImpl implements ParallelMapper {
-    private final Queue<Runnable> tasks;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+    private final Deque<Job> jobs;
     private final List<Thread> workers;
     private static final int MAX_SIZE = 256;
+    private int queued;
+
+    private final int coreThreads;
+    private final int maxThreads;
+    private final long keepAliveNanos;
+    private final int groups;
+    private final Deque<Integer> freeSlots;
+    private final AtomicInteger startedJobs = new AtomicInteger();
+    private int idleWorkers;
+    private int blockedCallers;
+    private int servedJobs;
+    private boolean closed;
+
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder addTaskBlockedNanos = new LongAdder();
+    private final AtomicLongArray workerBusyNanos;
+    private final AtomicLongArray workerIdleNanos;
+    private final LatencyHistogram taskLatency = new LatencyHistogram();
+    private ObjectName mBeanName;
 
     /**
      * Constructor, creates new instance of ParallelMapperImpl class
@@ -22,37 +54,284 @@ public class ParallelMapperImpl implements ParallelMapper {
      * @param threads - count of threads used in map function.
      */
     public ParallelMapperImpl(int threads) {
-        tasks = new ArrayDeque<>(MAX_SIZE);
+        this(threads, threads, 0, TimeUnit.NANOSECONDS, 1);
+    }
+
+    /**
+     * Creates elastic instance of ParallelMapperImpl class. Mapper keeps {@code coreThreads} workers and starts new
+     * ones, up to {@code maxThreads}, when queued tasks outnumber idle workers. Workers above {@code coreThreads}
+     * that have no tasks for {@code keepAlive} are stopped.
+     * <p>
+     * Workers are split into {@code groups} groups, and every {@code map} call is assigned to one of them. Among
+     * calls that haven't had their turn in current round-robin round, workers prefer calls of their group, so tasks
+     * of one call tend to run on the same subset of threads and share caches, but no call is served ahead of turn.
+     *
+     * @param coreThreads number of workers that are always kept
+     * @param maxThreads  maximal number of workers, positive
+     * @param keepAlive   time after which idle worker above {@code coreThreads} is stopped
+     * @param unit        time unit of {@code keepAlive}
+     * @param groups      number of worker groups
+     */
+    public ParallelMapperImpl(int coreThreads, int maxThreads, long keepAlive, TimeUnit unit, int groups) {
+        if (coreThreads < 0 || maxThreads < Math.max(1, coreThreads) || keepAlive < 0 || groups <= 0) {
+            throw new IllegalArgumentException("Invalid pool parameters: core " + coreThreads + ", max " + maxThreads
+                    + ", keep alive " + keepAlive + ", groups " + groups);
+        }
+        this.coreThreads = coreThreads;
+        this.maxThreads = maxThreads;
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.groups = groups;
+        jobs = new ArrayDeque<>();
         workers = new ArrayList<>();
-        for (int i = 0; i < threads; i++) {
-            addAndStart(workers, new Thread(() -> {
+        freeSlots = new ArrayDeque<>();
+        for (int i = 0; i < maxThreads; i++) {
+            freeSlots.add(i);
+        }
+        workerBusyNanos = new AtomicLongArray(maxThreads);
+        workerIdleNanos = new AtomicLongArray(maxThreads);
+        synchronized (jobs) {
+            for (int i = 0; i < coreThreads; i++) {
+                startWorker();
+            }
+        }
+    }
+
+    private void startWorker() {
+        final int slot = freeSlots.remove();
+        addAndStart(workers, new Thread(() -> {
+            try {
+                while (!Thread.interrupted()) {
+                    long start = System.nanoTime();
+                    Runnable task = getTask(slot);
+                    if (task == null) {
+                        return;
+                    }
+                    long taken = System.nanoTime();
+                    task.run();
+                    workerIdleNanos.addAndGet(slot, taken - start);
+                    workerBusyNanos.addAndGet(slot, System.nanoTime() - taken);
+                }
+            } catch (InterruptedException ignored) {
+            }
+        }));
+    }
+
+    /**
+     * Queue of tasks of one {@code map} call. Job is in {@link #jobs} while it has queued tasks.
+     * Job is {@code served} when it has got {@code weight} tasks taken in current round.
+     */
+    private static class Job {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private final int weight;
+        private final int group;
+        private int taken;
+        private boolean served;
+
+        Job(int weight, int group) {
+            this.weight = weight;
+            this.group = group;
+        }
+    }
+
+    private void addTask(Job job, Runnable task) throws InterruptedException {
+        long added = System.nanoTime();
+        Runnable timed = () -> {
+            task.run();
+            taskLatency.record(System.nanoTime() - added);
+            completedTasks.increment();
+        };
+        synchronized (jobs) {
+            if (job.tasks.size() == MAX_SIZE) {
+                ++blockedCallers;
                 try {
-                    while (!Thread.interrupted()) {
-                        getTask().run();
+                    while (job.tasks.size() == MAX_SIZE) {
+                        jobs.wait();
                     }
-                } catch (InterruptedException ignored) {
+                } finally {
+                    --blockedCallers;
+                    addTaskBlockedNanos.add(System.nanoTime() - added);
                 }
-            }));
+            }
+            if (job.tasks.isEmpty()) {
+                jobs.add(job);
+            }
+            job.tasks.add(timed);
+            ++queued;
+            if (!closed && queued > idleWorkers && workers.size() < maxThreads) {
+                startWorker();
+            }
+            // Single task wakes single worker, unless callers waiting for capacity may take the notification
+            if (blockedCallers == 0) {
+                jobs.notify();
+            } else {
+                jobs.notifyAll();
+            }
         }
     }
 
-    private void addTask(Runnable task) throws InterruptedException {
-        synchronized (tasks) {
-            while (tasks.size() == MAX_SIZE) {
-                tasks.wait();
+    /**
+     * Returns first job of {@code group}, that is not served in current round, or first not served job of any group.
+     */
+    private Job chooseJob(int group) {
+        Job first = null;
+        for (Job job : jobs) {
+            if (!job.served) {
+                if (job.group == group) {
+                    return job;
+                }
+                if (first == null) {
+                    first = job;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Waits for task for worker in given {@code slot}.
+     *
+     * @return task to run or {@code null} if worker was idle for keep alive time and should stop
+     */
+    private Runnable getTask(int slot) throws InterruptedException {
+        synchronized (jobs) {
+            ++idleWorkers;
+            try {
+                long deadline = System.nanoTime() + keepAliveNanos;
+                while (jobs.isEmpty()) {
+                    if (workers.size() > coreThreads) {
+                        long left = deadline - System.nanoTime();
+                        if (left <= 0) {
+                            workers.remove(Thread.currentThread());
+                            freeSlots.add(slot);
+                            return null;
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(jobs, left);
+                    } else {
+                        jobs.wait();
+                    }
+                }
+            } finally {
+                --idleWorkers;
+            }
+            Job job = chooseJob(slot % groups);
+            Runnable task = job.tasks.remove();
+            --queued;
+            if (job.tasks.isEmpty()) {
+                jobs.remove(job);
+                job.taken = 0;
+            } else if (++job.taken == job.weight) {
+                job.taken = 0;
+                job.served = true;
+                ++servedJobs;
+                jobs.remove(job);
+                jobs.add(job);
+            }
+            if (servedJobs == jobs.size()) {
+                for (Job next : jobs) {
+                    next.served = false;
+                }
+                servedJobs = 0;
             }
-            tasks.add(task);
-            tasks.notify();
+            if (job.tasks.size() == MAX_SIZE - 1) {
+                jobs.notifyAll();
+            }
+            return task;
+        }
+    }
+
+    private int queueLength() {
+        synchronized (jobs) {
+            return queued;
+        }
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] result = new long[array.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns snapshot of current metrics of this mapper.
+     *
+     * @return {@link ParallelMapperMetrics} of this mapper
+     */
+    public ParallelMapperMetrics metrics() {
+        return new ParallelMapperMetrics(queueLength(), completedTasks.sum(), addTaskBlockedNanos.sum(),
+                toArray(workerBusyNanos), toArray(workerIdleNanos), taskLatency.snapshot());
+    }
+
+    /**
+     * Registers {@link ParallelMapperMXBean} of this mapper in platform MBean server.
+     * MBean is unregistered on {@link #close()}.
+     *
+     * @return name of registered MBean
+     * @throws JMException if MBean cannot be registered
+     */
+    public synchronized ObjectName registerMBean() throws JMException {
+        if (mBeanName == null) {
+            ObjectName name = new ObjectName(getClass().getPackageName()
+                    + ":type=ParallelMapper,id=" + INSTANCES.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MXBean(), name);
+            mBeanName = name;
         }
+        return mBeanName;
     }
 
-    private Runnable getTask() throws InterruptedException {
-        synchronized (tasks) {
-            while (tasks.isEmpty()) {
-                tasks.wait();
+    private synchronized void unregisterMBean() {
+        if (mBeanName != null) {
+            ObjectName name = mBeanName;
+            mBeanName = null;
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot unregister MBean " + name, e);
             }
-            tasks.notifyAll();
-            return tasks.poll();
+        }
+    }
+
+    private class MXBean implements ParallelMapperMXBean {
+        @Override
+        public int getQueueLength() {
+            return queueLength();
+        }
+
+        @Override
+        public long getCompletedTasks() {
+            return completedTasks.sum();
+        }
+
+        @Override
+        public long getAddTaskBlockedNanos() {
+            return addTaskBlockedNanos.sum();
+        }
+
+        @Override
+        public long[] getWorkerBusyNanos() {
+            return toArray(workerBusyNanos);
+        }
+
+        @Override
+        public long[] getWorkerIdleNanos() {
+            return toArray(workerIdleNanos);
+        }
+
+        @Override
+        public long getTaskLatencyP50Nanos() {
+            return taskLatency.snapshot().percentile(50);
+        }
+
+        @Override
+        public long getTaskLatencyP99Nanos() {
+            return taskLatency.snapshot().percentile(99);
+        }
+
+        @Override
+        public long getTaskLatencyMaxNanos() {
+            return taskLatency.snapshot().max();
         }
     }
 
@@ -84,24 +363,64 @@ public class ParallelMapperImpl implements ParallelMapper {
 
     /**
      * {@inheritDoc}
+     * Tasks of call are scheduled with weight {@code 1}.
      */
     @Override
     public <T, R> List<R> map(Function<? super T, ? extends R> f, List<? extends T> args) throws InterruptedException {
+        return map(f, args, 1);
+    }
+
+    /**
+     * Maps function {@code f} over specified {@code args} with given scheduling {@code weight}.
+     * Workers serve concurrent calls in round-robin order, taking up to {@code weight} tasks of call in a row,
+     * so throughput of calls is proportional to their weights.
+     * At most {@value #MAX_SIZE} tasks of every call are queued at once.
+     *
+     * @param f      function to apply
+     * @param args   arguments of function
+     * @param weight positive scheduling weight of call
+     * @param <T>    type of arguments
+     * @param <R>    type of results
+     * @return {@link List} of results of {@code f} in order of {@code args}
+     * @throws InterruptedException if calling thread was interrupted
+     */
+    public <T, R> List<R> map(Function<? super T, ? extends R> f, List<? extends T> args, int weight)
+            throws InterruptedException {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Weight should be positive: " + weight);
+        }
+        Job job = new Job(weight, Math.floorMod(startedJobs.getAndIncrement(), groups));
         SynchronizedList<R> collector = new SynchronizedList<>(args.size());
         for (int i = 0; i < args.size(); i++) {
             final int ind = i;
-            addTask(() -> collector.setValue(ind, f.apply(args.get(ind))));
+            addTask(job, () -> collector.setValue(ind, f.apply(args.get(ind))));
         }
         return collector.getList();
     }
 
     /**
      * {@inheritDoc}
+     * Workers are stopped even if MBean cannot be unregistered.
+     *
+     * @throws IllegalStateException if registered MBean cannot be unregistered
      */
     @Override
     public void close() {
-        workers.forEach(Thread::interrupt);
-        workers.forEach(worker -> {
+        try {
+            unregisterMBean();
+        } finally {
+            stopWorkers();
+        }
+    }
+
+    private void stopWorkers() {
+        List<Thread> stopped;
+        synchronized (jobs) {
+            closed = true;
+            stopped = new ArrayList<>(workers);
+        }
+        stopped.forEach(Thread::interrupt);
+        stopped.forEach(worker -> {
             try {
                 worker.join();
             } catch (InterruptedException ignored) {
@@ -0,0 +1,62 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+/**
+ * Management interface of {@link ParallelMapperImpl}, see {@link ParallelMapperImpl#registerMBean()}.
+ */
+public interface ParallelMapperMXBean {
+    /**
+     * Returns number of tasks waiting in queue.
+     *
+     * @return queue length
+     */
+    int getQueueLength();
+
+    /**
+     * Returns number of completed tasks.
+     *
+     * @return number of completed tasks
+     */
+    long getCompletedTasks();
+
+    /**
+     * Returns total time callers of {@code map} spent waiting for free place in full queue.
+     *
+     * @return time in nanoseconds
+     */
+    long getAddTaskBlockedNanos();
+
+    /**
+     * Returns time every worker spent running tasks.
+     *
+     * @return time in nanoseconds for every worker
+     */
+    long[] getWorkerBusyNanos();
+
+    /**
+     * Returns time every worker spent waiting for tasks.
+     *
+     * @return time in nanoseconds for every worker
+     */
+    long[] getWorkerIdleNanos();
+
+    /**
+     * Returns median of time between adding task to queue and its completion.
+     *
+     * @return latency in nanoseconds
+     */
+    long getTaskLatencyP50Nanos();
+
+    /**
+     * Returns 99th percentile of time between adding task to queue and its completion.
+     *
+     * @return latency in nanoseconds
+     */
+    long getTaskLatencyP99Nanos();
+
+    /**
+     * Returns maximal time between adding task to queue and its completion.
+     *
+     * @return latency in nanoseconds
+     */
+    long getTaskLatencyMaxNanos();
+}
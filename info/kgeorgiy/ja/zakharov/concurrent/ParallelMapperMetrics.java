@@ -0,0 +1,61 @@
+package info.kgeorgiy.ja.zakharov.concurrent;
+
+/**
+ * Snapshot of {@link ParallelMapperImpl} metrics.
+ *
+ * @param queueLength         number of tasks waiting in queue
+ * @param completedTasks      number of completed tasks
+ * @param addTaskBlockedNanos total time callers of {@code map} spent waiting for free place in full queue
+ * @param workerBusyNanos     time every worker spent running tasks
+ * @param workerIdleNanos     time every worker spent waiting for tasks
+ * @param taskLatency         distribution of time between adding task to queue and its completion
+ */
+public record ParallelMapperMetrics(int queueLength, long completedTasks, long addTaskBlockedNanos,
+                                    long[] workerBusyNanos, long[] workerIdleNanos,
+                                    LatencyHistogram.Snapshot taskLatency) {
+    /**
+     * Creates snapshot, arrays of worker times are copied.
+     */
+    public ParallelMapperMetrics {
+        workerBusyNanos = workerBusyNanos.clone();
+        workerIdleNanos = workerIdleNanos.clone();
+        if (workerBusyNanos.length != workerIdleNanos.length) {
+            throw new IllegalArgumentException("Busy and idle times of different number of workers");
+        }
+    }
+
+    /**
+     * Returns time every worker spent running tasks.
+     *
+     * @return copy of busy times of workers
+     */
+    @Override
+    public long[] workerBusyNanos() {
+        return workerBusyNanos.clone();
+    }
+
+    /**
+     * Returns time every worker spent waiting for tasks.
+     *
+     * @return copy of idle times of workers
+     */
+    @Override
+    public long[] workerIdleNanos() {
+        return workerIdleNanos.clone();
+    }
+
+    /**
+     * Returns part of time workers spent running tasks.
+     *
+     * @return utilization in range {@code [0, 1]}
+     */
+    public double utilization() {
+        long busy = 0;
+        long total = 0;
+        for (int i = 0; i < workerBusyNanos.length; i++) {
+            busy += workerBusyNanos[i];
+            total += workerBusyNanos[i] + workerIdleNanos[i];
+        }
+        return total == 0 ? 0 : (double) busy / total;
+    }
+}
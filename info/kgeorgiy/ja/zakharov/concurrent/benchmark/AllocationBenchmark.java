@@ -0,0 +1,114 @@
+package info.kgeorgiy.ja.zakharov.concurrent.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism;
+import info.kgeorgiy.ja.zakharov.concurrent.ParallelMapperImpl;
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Command-line benchmark of allocations of {@link IterativeParallelism#filter}, {@link IterativeParallelism#map}
+ * and {@link IterativeParallelism#join} on large lists.
+ * Every operation runs on {@link ParallelMapperImpl}, so workers live during whole benchmark and bytes allocated
+ * by all live threads can be summed. Merging of per-block lists by streams, as was done before, is reported for
+ * reference.
+ */
+public class AllocationBenchmark {
+    private static final String USAGE = "Usage: AllocationBenchmark [size [threads [runs]]], e.g. 10000000 4 5";
+
+    private static volatile Object sink;
+
+    /**
+     * Operation on list of values.
+     */
+    @FunctionalInterface
+    private interface Operation {
+        Object run(List<Integer> values) throws InterruptedException;
+    }
+
+    /**
+     * Reference implementation, that collects every block into list and then merges lists.
+     */
+    private record StreamMerge(ParallelMapper mapper, int threads) {
+        private <T> List<List<T>> blocks(List<T> values) {
+            int count = Math.max(1, Math.min(threads, values.size()));
+            List<List<T>> blocks = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                blocks.add(values.subList(values.size() * i / count, values.size() * (i + 1) / count));
+            }
+            return blocks;
+        }
+
+        private <T, R> List<R> apply(List<T> values, Function<List<T>, List<R>> block) throws InterruptedException {
+            return mapper.map(block, blocks(values)).stream().flatMap(List::stream).collect(Collectors.toList());
+        }
+
+        List<Integer> filter(List<Integer> values) throws InterruptedException {
+            return apply(values, block -> block.stream().filter(value -> value % 2 == 0).collect(Collectors.toList()));
+        }
+
+        List<String> map(List<Integer> values) throws InterruptedException {
+            return apply(values, block -> block.stream().map(String::valueOf).collect(Collectors.toList()));
+        }
+
+        String join(List<Integer> values) throws InterruptedException {
+            return mapper.map(block -> block.stream().map(Object::toString).collect(Collectors.joining()),
+                    blocks(values)).stream().collect(Collectors.joining());
+        }
+    }
+
+    private static Map<String, Operation> operations(ParallelMapper mapper, int threads) {
+        IterativeParallelism parallelism = new IterativeParallelism(mapper);
+        StreamMerge reference = new StreamMerge(mapper, threads);
+        Map<String, Operation> operations = new LinkedHashMap<>();
+        operations.put("filter", values -> parallelism.filter(threads, values, value -> value % 2 == 0));
+        operations.put("filter, stream merge", reference::filter);
+        operations.put("map", values -> parallelism.map(threads, values, String::valueOf));
+        operations.put("map, stream merge", reference::map);
+        operations.put("join", values -> parallelism.join(threads, values));
+        operations.put("join, stream merge", reference::join);
+        return operations;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [size [threads [runs]]];
+     *             defaults are {@code 10000000}, number of available processors and {@code 5}
+     * @throws InterruptedException if interrupted while running operations
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 3, USAGE);
+        int size = arguments.positive(0, 10_000_000);
+        int threads = arguments.positive(1, Runtime.getRuntime().availableProcessors());
+        int runs = arguments.positive(2, 5);
+        if (!arguments.validate()) {
+            return;
+        }
+        List<Integer> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(i);
+        }
+        System.out.printf("%d elements, %d threads, %d runs%n", size, threads, runs);
+        try (ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+            for (Map.Entry<String, Operation> operation : operations(mapper, threads).entrySet()) {
+                sink = operation.getValue().run(values);
+                sink = null;
+                long allocated = Benchmarks.allocatedBytes();
+                long start = System.nanoTime();
+                for (int run = 0; run < runs; run++) {
+                    sink = operation.getValue().run(values);
+                }
+                long nanos = System.nanoTime() - start;
+                long allocatedAfter = Benchmarks.allocatedBytes();
+                System.out.printf("  %-22s %10.1f ms/op %16.1f B/op %8.2f B/element%n",
+                        operation.getKey(), nanos / 1e6 / runs,
+                        allocated < 0 ? Double.NaN : (double) (allocatedAfter - allocated) / runs,
+                        allocated < 0 ? Double.NaN : (double) (allocatedAfter - allocated) / runs / size);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package info.kgeorgiy.ja.zakharov.concurrent.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.concurrent.LatencyHistogram;
+import info.kgeorgiy.ja.zakharov.concurrent.ParallelMapperImpl;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Command-line benchmark of {@link ParallelMapperImpl} under bursty load of blocking tasks.
+ * Every burst is a number of concurrent {@code map} calls, bursts are separated by idle pauses, longer than keep
+ * alive time of elastic pool. Small and large fixed pools and elastic pool between them are compared by latency of
+ * calls and by number of live workers during pauses.
+ */
+public class BurstBenchmark {
+    private static final String USAGE =
+            "Usage: BurstBenchmark [bursts [core threads [max threads [task millis]]]], e.g. 10 2 32 1";
+    private static final int CALLS = 8;
+    private static final int TASKS = 32;
+    private static final long PAUSE_MILLIS = 300;
+    private static final long KEEP_ALIVE_MILLIS = 100;
+
+    private static volatile Object sink;
+
+    /**
+     * Pool configuration.
+     */
+    private record Pool(int coreThreads, int maxThreads, long keepAliveMillis) {
+        ParallelMapperImpl create() {
+            return new ParallelMapperImpl(coreThreads, maxThreads, keepAliveMillis, TimeUnit.MILLISECONDS, 1);
+        }
+    }
+
+    private static Function<Integer, Integer> work(long millis) {
+        return value -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value;
+        };
+    }
+
+    /**
+     * Returns number of live workers, that are the only threads with default names, callers are named.
+     */
+    private static int workers() {
+        return (int) Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().startsWith("Thread-"))
+                .count();
+    }
+
+    /**
+     * Runs bursts on pool and prints latency of calls and average number of workers during pauses.
+     */
+    private static void run(String name, Pool pool, int bursts, long taskMillis) throws InterruptedException {
+        Function<Integer, Integer> work = work(taskMillis);
+        List<Integer> args = Collections.nCopies(TASKS, 1);
+        LatencyHistogram latency = new LatencyHistogram();
+        long idleWorkers = 0;
+        long start = System.nanoTime();
+        try (ParallelMapperImpl mapper = pool.create()) {
+            for (int burst = 0; burst < bursts; burst++) {
+                List<Thread> callers = new ArrayList<>();
+                for (int call = 0; call < CALLS; call++) {
+                    Thread caller = new Thread(() -> {
+                        long called = System.nanoTime();
+                        try {
+                            sink = mapper.map(work, args);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        latency.record(System.nanoTime() - called);
+                    }, "caller");
+                    callers.add(caller);
+                    caller.start();
+                }
+                for (Thread caller : callers) {
+                    caller.join();
+                }
+                Thread.sleep(PAUSE_MILLIS);
+                idleWorkers += workers();
+            }
+        }
+        long nanos = System.nanoTime() - start - bursts * PAUSE_MILLIS * 1_000_000;
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("  %-24s %10.1f ms busy   p50 %8.1f ms   p99 %8.1f ms %8.1f idle workers%n", name,
+                nanos / 1e6, snapshot.percentile(50) / 1e6, snapshot.percentile(99) / 1e6,
+                (double) idleWorkers / bursts);
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [bursts [core threads [max threads [task millis]]]];
+     *             defaults are {@code 10 2 32 1}
+     * @throws InterruptedException if interrupted while running calls
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 4, USAGE);
+        int bursts = arguments.positive(0, 10);
+        int coreThreads = arguments.positive(1, 2);
+        int maxThreads = arguments.positive(2, 32);
+        long taskMillis = arguments.nonNegativeLong(3, 1);
+        arguments.check(maxThreads >= coreThreads);
+        if (!arguments.validate()) {
+            return;
+        }
+        System.out.printf("%d bursts of %d calls of %d tasks, %d ms per task, %d ms pauses%n",
+                bursts, CALLS, TASKS, taskMillis, PAUSE_MILLIS);
+        Map<String, Pool> pools = new LinkedHashMap<>();
+        pools.put("fixed, " + coreThreads + " threads", new Pool(coreThreads, coreThreads, 0));
+        pools.put("fixed, " + maxThreads + " threads", new Pool(maxThreads, maxThreads, 0));
+        pools.put("elastic, " + coreThreads + "-" + maxThreads + " threads",
+                new Pool(coreThreads, maxThreads, KEEP_ALIVE_MILLIS));
+        for (Map.Entry<String, Pool> pool : pools.entrySet()) {
+            run(pool.getKey(), pool.getValue(), bursts, taskMillis);
+        }
+    }
+}
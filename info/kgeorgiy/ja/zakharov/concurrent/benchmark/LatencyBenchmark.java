@@ -0,0 +1,97 @@
+package info.kgeorgiy.ja.zakharov.concurrent.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.concurrent.LatencyHistogram;
+import info.kgeorgiy.ja.zakharov.concurrent.ParallelMapperImpl;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Command-line benchmark of latency of small {@code map} calls of {@link ParallelMapperImpl}, that run next to
+ * large call. Small calls are issued one by one, while large calls are issued back to back by another thread.
+ * Latency of small calls alone is reported for reference, and so is latency next to large call of weight
+ * {@value #FIFO_WEIGHT}, that takes all its queued tasks in a row, as single FIFO queue of tasks did.
+ */
+public class LatencyBenchmark {
+    private static final String USAGE = "Usage: LatencyBenchmark [threads [small calls [task micros]]], e.g. 4 200 100";
+    private static final int SMALL_TASKS = 4;
+    private static final int LARGE_TASKS = 2000;
+    private static final int FIFO_WEIGHT = 256;
+
+    private static volatile Object sink;
+
+    private static Function<Integer, Long> work(long nanos) {
+        return value -> {
+            long start = System.nanoTime();
+            long result = value;
+            while (System.nanoTime() - start < nanos) {
+                result = result * 31 + 1;
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Runs small calls, next to large calls of given weight, if it is positive.
+     *
+     * @return latency of small calls
+     */
+    private static LatencyHistogram.Snapshot run(int threads, int calls, long taskNanos, int largeWeight)
+            throws InterruptedException {
+        Function<Integer, Long> work = work(taskNanos);
+        List<Integer> small = Collections.nCopies(SMALL_TASKS, 1);
+        List<Integer> large = Collections.nCopies(LARGE_TASKS, 1);
+        LatencyHistogram latency = new LatencyHistogram();
+        try (ParallelMapperImpl mapper = new ParallelMapperImpl(threads)) {
+            Thread background = new Thread(() -> {
+                try {
+                    while (!Thread.interrupted()) {
+                        sink = mapper.map(work, large, largeWeight);
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+            if (largeWeight > 0) {
+                background.start();
+                Thread.sleep(100);
+            }
+            for (int call = 0; call < calls; call++) {
+                long start = System.nanoTime();
+                sink = mapper.map(work, small);
+                latency.record(System.nanoTime() - start);
+            }
+            background.interrupt();
+            background.join();
+        }
+        return latency.snapshot();
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [threads [small calls [task micros]]];
+     *             defaults are number of available processors, {@code 200} and {@code 100}
+     * @throws InterruptedException if interrupted while running calls
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 3, USAGE);
+        int threads = arguments.positive(0, Runtime.getRuntime().availableProcessors());
+        int calls = arguments.positive(1, 200);
+        long taskMicros = arguments.nonNegativeLong(2, 100);
+        if (!arguments.validate()) {
+            return;
+        }
+        System.out.printf("%d threads, %d calls of %d tasks, large calls of %d tasks, %d us per task%n",
+                threads, calls, SMALL_TASKS, LARGE_TASKS, taskMicros);
+        Map<String, Integer> modes = new LinkedHashMap<>();
+        modes.put("alone", 0);
+        modes.put("next to large, round robin", 1);
+        modes.put("next to large, FIFO-like", FIFO_WEIGHT);
+        for (Map.Entry<String, Integer> mode : modes.entrySet()) {
+            LatencyHistogram.Snapshot latency = run(threads, calls, taskMicros * 1000, mode.getValue());
+            System.out.printf("  %-28s p50 %10.2f ms   p99 %10.2f ms   max %10.2f ms%n", mode.getKey(),
+                    latency.percentile(50) / 1e6, latency.percentile(99) / 1e6, latency.max() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package info.kgeorgiy.ja.zakharov.crawler;
+
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import info.kgeorgiy.java.advanced.crawler.URLUtils;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command-line check of {@link WebCrawler} with injected executor, that doesn't limit its threads.
+ * Crawler with {@link Executors#newCachedThreadPool()} traverses tree of pages on few hosts by every traversal,
+ * maximal numbers of concurrent downloads, in total and from one host, are checked not to exceed limits of crawler,
+ * downloaded pages are checked to be same as of crawler with fixed pools, executor is checked to be shut down.
+ */
+class ExecutorLimitCheck {
+    private static final int DOWNLOADERS = 4;
+    private static final int EXTRACTORS = 2;
+    private static final int PER_HOST = 2;
+    private static final int HOSTS = 3;
+    private static final int LINKS = 3;
+    private static final int DEPTH = 6;
+    private static final int LATENCY = 2;
+
+    /**
+     * Downloader of tree of pages, every page links to {@value #LINKS} pages of different hosts.
+     * Tracks maximal numbers of concurrent downloads, in total and from one host.
+     */
+    private static class TreeDownloader implements Downloader {
+        private final AtomicInteger downloads = new AtomicInteger();
+        private final ConcurrentMap<String, AtomicInteger> hostDownloads = new ConcurrentHashMap<>();
+        private final AtomicInteger maxDownloads = new AtomicInteger();
+        private final AtomicInteger maxHostDownloads = new AtomicInteger();
+
+        private static String url(String path) {
+            return "http://host" + Math.floorMod(path.hashCode(), HOSTS) + ".example/" + path;
+        }
+
+        String root() {
+            return url("");
+        }
+
+        @Override
+        public Document download(String url) throws IOException {
+            AtomicInteger host = hostDownloads.computeIfAbsent(URLUtils.getHost(url), h -> new AtomicInteger());
+            maxDownloads.accumulateAndGet(downloads.incrementAndGet(), Math::max);
+            maxHostDownloads.accumulateAndGet(host.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            } finally {
+                host.decrementAndGet();
+                downloads.decrementAndGet();
+            }
+            String path = url.substring(url.indexOf('/', "http://".length()) + 1);
+            List<String> links = new ArrayList<>();
+            for (int link = 0; link < LINKS; link++) {
+                links.add(url(path + link));
+            }
+            return () -> links;
+        }
+    }
+
+    private static Set<String> download(WebCrawler crawler, String root) {
+        Result result = crawler.download(root, DEPTH);
+        if (!result.getErrors().isEmpty()) {
+            throw new IllegalStateException("Errors: " + result.getErrors());
+        }
+        return new HashSet<>(result.getDownloaded());
+    }
+
+    /**
+     * Runs check.
+     *
+     * @param args ignored
+     * @throws IllegalStateException if limits are exceeded or results differ
+     */
+    public static void main(String[] args) {
+        for (WebCrawler.Traversal traversal : WebCrawler.Traversal.values()) {
+            TreeDownloader downloader = new TreeDownloader();
+            Set<String> expected;
+            try (WebCrawler crawler = new WebCrawler(downloader, DOWNLOADERS, EXTRACTORS, PER_HOST, traversal)) {
+                expected = download(crawler, downloader.root());
+            }
+            downloader = new TreeDownloader();
+            ExecutorService executor = Executors.newCachedThreadPool();
+            Set<String> downloaded;
+            try (WebCrawler crawler = new WebCrawler(downloader, DOWNLOADERS, EXTRACTORS, PER_HOST, traversal,
+                    WebCrawler.Execution.PLATFORM, executor)) {
+                downloaded = download(crawler, downloader.root());
+            }
+            System.out.printf("%-10s %6d pages %4d max downloads %4d per host%n", traversal, downloaded.size(),
+                    downloader.maxDownloads.get(), downloader.maxHostDownloads.get());
+            if (downloader.maxDownloads.get() > DOWNLOADERS || downloader.maxHostDownloads.get() > PER_HOST) {
+                throw new IllegalStateException(String.format(
+                        "Limits exceeded: %d concurrent downloads of %d, %d from one host of %d",
+                        downloader.maxDownloads.get(), DOWNLOADERS, downloader.maxHostDownloads.get(), PER_HOST));
+            }
+            if (!downloaded.equals(expected)) {
+                throw new IllegalStateException("Downloaded pages differ from fixed pools: "
+                        + downloaded.size() + " instead of " + expected.size());
+            }
+            if (!executor.isShutdown()) {
+                throw new IllegalStateException("Executor is not shut down on close");
+            }
+        }
+    }
+}
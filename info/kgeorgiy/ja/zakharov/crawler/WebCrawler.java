@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 
@@ -14,11 +15,46 @@ import java.util.stream.Collectors;
  * Webcrawler use multithreading dfs and correctly works in multithreading.
  */
 public class WebCrawler implements AdvancedCrawler {
+    /**
+     * Order of traversal of pages.
+     */
+    public enum Traversal {
+        /**
+         * Pages are downloaded layer by layer, next layer starts after all pages of previous one are processed.
+         */
+        LAYERED,
+        /**
+         * Links are scheduled as soon as they are extracted, every page carries its own remaining depth.
+         * Result is same as of {@link #LAYERED}: page reached at several depths is processed with the shallowest one.
+         */
+        PIPELINED
+    }
+
+    /**
+     * Threads that run downloads and extractions.
+     */
+    public enum Execution {
+        /**
+         * Fixed pools of platform threads, numbers of downloaders and extractors are sizes of pools.
+         */
+        PLATFORM,
+        /**
+         * Every task runs in its own virtual thread, numbers of downloaders, extractors and downloads per host are
+         * limited by semaphores. Falls back to {@link #PLATFORM}, if runtime doesn't support virtual threads.
+         */
+        VIRTUAL
+    }
+
     private final Downloader downloader;
     private final int perHost;
-    private final Phaser parentSync;
+    private final Traversal traversal;
+    private final Set<Phaser> syncs;
+    private volatile boolean closed;
+    private final Execution execution;
     private final ExecutorService downloadersPool;
     private final ExecutorService extractorsPool;
+    private final Semaphore downloadersLimit;
+    private final Semaphore extractorsLimit;
 
     /**
      * Creates instance of WebCrawler
@@ -29,39 +65,152 @@ public class WebCrawler implements AdvancedCrawler {
      * @param perHost     maximum number of downloads that might be from one host.
      */
     public WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost) {
+        this(downloader, downloaders, extractors, perHost, Traversal.LAYERED);
+    }
+
+    /**
+     * Creates instance of WebCrawler with given order of traversal
+     *
+     * @param downloader  {@link Downloader} used to download content from internet pages.
+     * @param downloaders number of maximum threads can be used for download.
+     * @param extractors  number of maximum extractors can be used for extract content from page.
+     * @param perHost     maximum number of downloads that might be from one host.
+     * @param traversal   order of traversal of pages.
+     */
+    public WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost, Traversal traversal) {
+        this(downloader, downloaders, extractors, perHost, traversal, Execution.PLATFORM);
+    }
+
+    /**
+     * Creates instance of WebCrawler with given order of traversal and threads
+     *
+     * @param downloader  {@link Downloader} used to download content from internet pages.
+     * @param downloaders number of maximum threads can be used for download.
+     * @param extractors  number of maximum extractors can be used for extract content from page.
+     * @param perHost     maximum number of downloads that might be from one host.
+     * @param traversal   order of traversal of pages.
+     * @param execution   threads that run downloads and extractions.
+     */
+    public WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost, Traversal traversal,
+                      Execution execution) {
+        this(downloader, downloaders, extractors, perHost, traversal, execution,
+                Objects.requireNonNull(execution) == Execution.VIRTUAL ? newVirtualThreadPerTaskExecutor() : null);
+    }
+
+    /**
+     * Creates instance of WebCrawler, that runs downloads and extractions by given executor. Numbers of
+     * downloaders, extractors and downloads per host are limited by semaphores, as for {@link Execution#VIRTUAL}.
+     * Executor is shut down on {@link #close()}. If there is no executor, {@link Execution#PLATFORM} crawler
+     * creates fixed pools and {@link Execution#VIRTUAL} one falls back to them, as runtime has no virtual threads.
+     *
+     * @param downloader  {@link Downloader} used to download content from internet pages.
+     * @param downloaders number of maximum threads can be used for download.
+     * @param extractors  number of maximum extractors can be used for extract content from page.
+     * @param perHost     maximum number of downloads that might be from one host.
+     * @param traversal   order of traversal of pages.
+     * @param execution   threads of executor, returned by {@link #getExecution()}.
+     * @param executor    executor of all tasks, or {@code null} to use fixed pools of platform threads.
+     */
+    WebCrawler(Downloader downloader, int downloaders, int extractors, int perHost, Traversal traversal,
+               Execution execution, ExecutorService executor) {
         this.downloader = downloader;
         this.perHost = perHost;
-        downloadersPool = Executors.newFixedThreadPool(downloaders);
-        extractorsPool = Executors.newFixedThreadPool(extractors);
-        parentSync = new Phaser();
+        this.traversal = Objects.requireNonNull(traversal);
+        this.execution = switch (Objects.requireNonNull(execution)) {
+            case PLATFORM -> Execution.PLATFORM;
+            case VIRTUAL -> executor != null ? Execution.VIRTUAL : Execution.PLATFORM;
+        };
+        if (executor != null) {
+            downloadersPool = executor;
+            extractorsPool = executor;
+            downloadersLimit = new Semaphore(downloaders);
+            extractorsLimit = new Semaphore(extractors);
+        } else {
+            downloadersPool = Executors.newFixedThreadPool(downloaders);
+            extractorsPool = Executors.newFixedThreadPool(extractors);
+            downloadersLimit = null;
+            extractorsLimit = null;
+        }
+        syncs = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Returns threads that run downloads and extractions. It is {@link Execution#PLATFORM}, if
+     * {@link Execution#VIRTUAL} was requested, but runtime doesn't support virtual threads.
+     *
+     * @return threads used by this crawler.
+     */
+    public Execution getExecution() {
+        return execution;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void submit(final ExecutorService pool, final Runnable task) {
+        try {
+            pool.submit(task);
+        } catch (RejectedExecutionException ignored) {}
+    }
+
+    private static void runLimited(final Semaphore limit, final Runnable task) {
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            limit.release();
+        }
+    }
+
+    private void submitExtractor(final Runnable task) {
+        extractorsPool.submit(extractorsLimit == null ? task : () -> runLimited(extractorsLimit, task));
     }
 
     private class HostQueue {
         private final Queue<Runnable> waiting;
+        private final Semaphore permits;
         private int cnt;
 
         HostQueue() {
             waiting = new ArrayDeque<>();
+            permits = downloadersLimit != null ? new Semaphore(perHost) : null;
             cnt = 0;
         }
 
         private synchronized void add(Runnable task) {
+            if (permits != null) {
+                submit(downloadersPool, () -> runLimited(permits, () -> runLimited(downloadersLimit, task)));
+                return;
+            }
+            final Runnable next = () -> {
+                try {
+                    task.run();
+                } finally {
+                    next();
+                }
+            };
             if (cnt < perHost) {
                 ++cnt;
-                try {
-                    downloadersPool.submit(task);
-                } catch (RejectedExecutionException ignored) {}
+                submit(downloadersPool, next);
             } else {
-                waiting.add(task);
+                waiting.add(next);
             }
         }
 
         private synchronized void next() {
             final Runnable task = waiting.poll();
             if (task != null) {
-                try {
-                    downloadersPool.submit(task);
-                } catch (RejectedExecutionException ignored) {}
+                submit(downloadersPool, task);
             } else {
                 --cnt;
             }
@@ -77,7 +226,7 @@ public class WebCrawler implements AdvancedCrawler {
         private final ConcurrentMap<String, HostQueue> hostsQueue;
 
         @SuppressWarnings("SimplifyStreamApiCallChains")
-        BFSInformation(List<String> hosts, Phaser parentSync) {
+        BFSInformation(List<String> hosts) {
             if (hosts != null) {
                 allowedHosts = hosts.stream().collect(Collectors.toSet());
             } else {
@@ -85,7 +234,7 @@ public class WebCrawler implements AdvancedCrawler {
             }
             errors = new ConcurrentHashMap<>();
             used = ConcurrentHashMap.newKeySet();
-            sync = new Phaser(parentSync, 1);
+            sync = new Phaser(1);
             cashedLinks = ConcurrentHashMap.newKeySet();
             hostsQueue = new ConcurrentHashMap<>();
         }
@@ -111,13 +260,29 @@ public class WebCrawler implements AdvancedCrawler {
      */
     @Override
     public Result download(String url, int depth, List<String> hosts) {
-        final BFSInformation bfsInformation = new BFSInformation(hosts, parentSync);
-        bfsInformation.used.add(url);
-        ConcurrentLinkedDeque<String> deque = new ConcurrentLinkedDeque<>();
-        deque.add(url);
-        for (int i = 1; i <= depth; i++) {
-            deque = downloadImpl(deque, bfsInformation, i < depth);
-            bfsInformation.sync.arriveAndAwaitAdvance();
+        final BFSInformation bfsInformation = new BFSInformation(hosts);
+        syncs.add(bfsInformation.sync);
+        if (closed) {
+            bfsInformation.sync.forceTermination();
+        }
+        try {
+            if (traversal == Traversal.PIPELINED) {
+                final Pipeline pipeline = new Pipeline(bfsInformation);
+                bfsInformation.sync.register();
+                pipeline.visit(url, depth);
+                pipeline.done();
+                bfsInformation.sync.arriveAndAwaitAdvance();
+            } else {
+                bfsInformation.used.add(url);
+                ConcurrentLinkedDeque<String> deque = new ConcurrentLinkedDeque<>();
+                deque.add(url);
+                for (int i = 1; i <= depth; i++) {
+                    deque = downloadImpl(deque, bfsInformation, i < depth);
+                    bfsInformation.sync.arriveAndAwaitAdvance();
+                }
+            }
+        } finally {
+            syncs.remove(bfsInformation.sync);
         }
         return new Result(new ArrayList<>(bfsInformation.cashedLinks), bfsInformation.errors);
     }
@@ -142,7 +307,7 @@ public class WebCrawler implements AdvancedCrawler {
                         if (needExtract) {
                             bfsInformation.sync.register();
                             try {
-                                extractorsPool.submit(() -> {
+                                submitExtractor(() -> {
                                     try {
                                         nextLayer.addAll(page.extractLinks().stream().filter(bfsInformation.used::add).toList());
                                     } catch (IOException e) {
@@ -157,7 +322,6 @@ public class WebCrawler implements AdvancedCrawler {
                         bfsInformation.errors.put(url, e);
                     } finally {
                         bfsInformation.sync.arriveAndDeregister();
-                        queue.next();
                     }
                 });
             } catch (MalformedURLException e) {
@@ -167,12 +331,130 @@ public class WebCrawler implements AdvancedCrawler {
         return nextLayer;
     }
 
+    /**
+     * State of page, guarded by its monitor. Downloaded document is kept only until its links are extracted.
+     */
+    private static class Page {
+        private int remaining;
+        private boolean downloaded;
+        private Document document;
+        private List<String> links;
+    }
+
+    /**
+     * Barrier-free traversal. Every page keeps the largest remaining depth it was reached with, and links of page
+     * are extracted again, if it is reached with larger depth after extraction. Running tasks are counted instead
+     * of registered in {@link Phaser}, so number of waiting tasks is not limited by number of phaser parties:
+     * single party of {@link BFSInformation#sync} is held while some tasks are running.
+     */
+    private class Pipeline {
+        private final BFSInformation bfsInformation;
+        private final ConcurrentMap<String, Page> pages = new ConcurrentHashMap<>();
+        private final AtomicInteger running = new AtomicInteger(1);
+
+        Pipeline(final BFSInformation bfsInformation) {
+            this.bfsInformation = bfsInformation;
+        }
+
+        private void done() {
+            if (running.decrementAndGet() == 0) {
+                bfsInformation.sync.arriveAndDeregister();
+            }
+        }
+
+        private void visit(final String url, final int remaining) {
+            final Page page = pages.computeIfAbsent(url, s -> new Page());
+            final boolean firstVisit;
+            final boolean downloaded;
+            synchronized (page) {
+                if (remaining <= page.remaining) {
+                    return;
+                }
+                firstVisit = page.remaining == 0;
+                page.remaining = remaining;
+                downloaded = page.downloaded;
+            }
+            if (firstVisit) {
+                download(url, page);
+            } else if (downloaded && remaining > 1) {
+                extract(url, page, remaining - 1);
+            }
+        }
+
+        private void download(final String url, final Page page) {
+            final String host;
+            try {
+                host = URLUtils.getHost(url);
+            } catch (MalformedURLException e) {
+                bfsInformation.errors.put(url, e);
+                return;
+            }
+            if (!bfsInformation.allowedHost(host)) {
+                return;
+            }
+            final HostQueue queue = bfsInformation.hostsQueue.computeIfAbsent(host, s -> new HostQueue());
+            running.incrementAndGet();
+            queue.add(() -> {
+                try {
+                    final Document document = downloader.download(url);
+                    bfsInformation.cashedLinks.add(url);
+                    final int remaining;
+                    synchronized (page) {
+                        page.document = document;
+                        page.downloaded = true;
+                        remaining = page.remaining;
+                    }
+                    if (remaining > 1) {
+                        extract(url, page, remaining - 1);
+                    }
+                } catch (IOException e) {
+                    bfsInformation.errors.put(url, e);
+                } finally {
+                    done();
+                }
+            });
+        }
+
+        private void extract(final String url, final Page page, final int remaining) {
+            running.incrementAndGet();
+            try {
+                submitExtractor(() -> {
+                    try {
+                        List<String> links;
+                        final Document document;
+                        synchronized (page) {
+                            links = page.links;
+                            document = page.document;
+                        }
+                        if (links == null) {
+                            links = document.extractLinks();
+                            synchronized (page) {
+                                page.links = links;
+                                page.document = null;
+                            }
+                        }
+                        for (final String link : links) {
+                            visit(link, remaining);
+                        }
+                    } catch (IOException e) {
+                        bfsInformation.errors.put(url, e);
+                    } finally {
+                        done();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                done();
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void close() {
-        parentSync.forceTermination();
+        closed = true;
+        syncs.forEach(Phaser::forceTermination);
         downloadersPool.shutdown();
         extractorsPool.shutdown();
         forceShutdown(downloadersPool);
@@ -0,0 +1,162 @@
+package info.kgeorgiy.ja.zakharov.crawler.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.crawler.WebCrawler;
+import info.kgeorgiy.java.advanced.crawler.Document;
+import info.kgeorgiy.java.advanced.crawler.Downloader;
+import info.kgeorgiy.java.advanced.crawler.Result;
+import info.kgeorgiy.java.advanced.crawler.URLUtils;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Command-line benchmark of {@link WebCrawler} on synthetic graph with skewed latency.
+ * Every page links to random pages of random hosts. One of {@link #SLOW_SHARE} pages is on slow host, that is
+ * downloaded much slower than others, so nearly every layer of traversal has few slow pages.
+ * Wall time of every traversal with every kind of threads is reported, results are checked to be equal.
+ * Virtual threads are skipped, if runtime doesn't support them.
+ * Maximal numbers of concurrent downloads, in total and from one host, are checked not to exceed limits of crawler.
+ */
+public class CrawlerBenchmark {
+    private static final String USAGE =
+            "Usage: CrawlerBenchmark [pages [depth [slow latency ms [downloaders]]]], e.g. 2000 4 100 32";
+    private static final int HOSTS = 10;
+    private static final int LINKS = 8;
+    private static final int SLOW_SHARE = 50;
+    private static final int FAST_LATENCY = 2;
+    private static final int EXTRACTORS = 8;
+    private static final int PER_HOST = 8;
+
+    /**
+     * Stand-in downloader of synthetic graph, that sleeps instead of network access.
+     * Tracks maximal numbers of concurrent downloads, in total and from one host.
+     */
+    private static class GraphDownloader implements Downloader {
+        private final List<List<String>> links = new ArrayList<>();
+        private final Map<String, Integer> pages = new HashMap<>();
+        private final int slowLatency;
+        private final AtomicInteger downloads = new AtomicInteger();
+        private final ConcurrentMap<String, AtomicInteger> hostDownloads = new ConcurrentHashMap<>();
+        private final AtomicInteger maxDownloads = new AtomicInteger();
+        private final AtomicInteger maxHostDownloads = new AtomicInteger();
+
+        GraphDownloader(int count, int slowLatency) {
+            this.slowLatency = slowLatency;
+            Random random = new Random(4875043285743285204L);
+            for (int page = 0; page < count; page++) {
+                int host = random.nextInt(SLOW_SHARE) == 0 ? 0 : 1 + random.nextInt(HOSTS - 1);
+                pages.put(url(page, host), page);
+            }
+            List<String> urls = new ArrayList<>(pages.keySet());
+            urls.sort(Comparator.comparing(pages::get));
+            for (int page = 0; page < count; page++) {
+                List<String> pageLinks = new ArrayList<>();
+                for (int link = 0; link < LINKS; link++) {
+                    pageLinks.add(urls.get(random.nextInt(count)));
+                }
+                links.add(pageLinks);
+            }
+        }
+
+        private static String url(int page, int host) {
+            return "http://host" + host + ".example/page" + page + ".html";
+        }
+
+        String root() {
+            return pages.entrySet().stream().filter(entry -> entry.getValue() == 0).findAny().orElseThrow().getKey();
+        }
+
+        /**
+         * Resets maximal numbers of concurrent downloads.
+         */
+        void reset() {
+            maxDownloads.set(0);
+            maxHostDownloads.set(0);
+        }
+
+        /**
+         * Checks that maximal numbers of concurrent downloads since last reset don't exceed limits.
+         *
+         * @throws IllegalStateException if some of limits is exceeded
+         */
+        void checkLimits(int downloaders, int perHost) {
+            if (maxDownloads.get() > downloaders || maxHostDownloads.get() > perHost) {
+                throw new IllegalStateException(String.format(
+                        "Limits exceeded: %d concurrent downloads of %d, %d from one host of %d",
+                        maxDownloads.get(), downloaders, maxHostDownloads.get(), perHost));
+            }
+        }
+
+        @Override
+        public Document download(String url) throws IOException {
+            Integer page = pages.get(url);
+            if (page == null) {
+                throw new IOException("Not found: " + url);
+            }
+            AtomicInteger host = hostDownloads.computeIfAbsent(URLUtils.getHost(url), h -> new AtomicInteger());
+            maxDownloads.accumulateAndGet(downloads.incrementAndGet(), Math::max);
+            maxHostDownloads.accumulateAndGet(host.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(url.startsWith("http://host0.") ? slowLatency : FAST_LATENCY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            } finally {
+                host.decrementAndGet();
+                downloads.decrementAndGet();
+            }
+            List<String> pageLinks = links.get(page);
+            return () -> pageLinks;
+        }
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [pages [depth [slow latency ms [downloaders]]]];
+     *             defaults are {@code 2000 4 100 32}
+     */
+    public static void main(String[] args) {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 4, USAGE);
+        int count = arguments.positive(0, 2000);
+        int depth = arguments.positive(1, 4);
+        int slowLatency = arguments.nonNegative(2, 100);
+        int downloaders = arguments.positive(3, 32);
+        if (!arguments.validate()) {
+            return;
+        }
+        GraphDownloader downloader = new GraphDownloader(count, slowLatency);
+        System.out.printf("%d pages, depth %d, %d ms on slow host, %d ms on others, %d downloaders%n",
+                count, depth, slowLatency, FAST_LATENCY, downloaders);
+        Set<String> expected = null;
+        for (WebCrawler.Traversal traversal : WebCrawler.Traversal.values()) {
+            for (WebCrawler.Execution execution : WebCrawler.Execution.values()) {
+                try (WebCrawler crawler = new WebCrawler(downloader, downloaders, EXTRACTORS, PER_HOST, traversal,
+                        execution)) {
+                    if (crawler.getExecution() != execution) {
+                        continue;
+                    }
+                    downloader.reset();
+                    long start = System.nanoTime();
+                    Result result = crawler.download(downloader.root(), depth);
+                    long nanos = System.nanoTime() - start;
+                    Set<String> downloaded = new HashSet<>(result.getDownloaded());
+                    String name = (traversal + ", " + crawler.getExecution()).toLowerCase(Locale.ROOT);
+                    System.out.printf("  %-20s %10.1f ms %8d pages %6d errors %4d max downloads %4d per host%n",
+                            name, nanos / 1e6, downloaded.size(), result.getErrors().size(),
+                            downloader.maxDownloads.get(), downloader.maxHostDownloads.get());
+                    downloader.checkLimits(downloaders, PER_HOST);
+                    if (expected == null) {
+                        expected = downloaded;
+                    } else if (!expected.equals(downloaded)) {
+                        System.out.println("  downloaded pages differ");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of class file of default implementation of class or interface.
+ * Constructors pass their arguments to constructor of superclass, methods return default values of their return types.
+ * Generated code has no branches, so class file of version 52 needs no stack map frames.
+ */
+class BytecodeWriter {
+    /**
+     * Class file version 52.0 of Java 8.
+     */
+    private static final int VERSION = 52;
+    /**
+     * Access flags {@code ACC_PUBLIC | ACC_SUPER} of generated class.
+     */
+    private static final int CLASS_ACCESS = 0x0021;
+    /**
+     * Access flag {@code ACC_PUBLIC} of generated methods.
+     */
+    private static final int METHOD_ACCESS = 0x0001;
+
+    /**
+     * Opcode {@code aconst_null}, pushes {@code null}.
+     */
+    private static final int ACONST_NULL = 0x01;
+    /**
+     * Opcode {@code iconst_0}, pushes {@code int} zero, also used for {@code boolean}, {@code char} and others.
+     */
+    private static final int ICONST_0 = 0x03;
+    /**
+     * Opcode {@code lconst_0}, pushes {@code long} zero.
+     */
+    private static final int LCONST_0 = 0x09;
+    /**
+     * Opcode {@code fconst_0}, pushes {@code float} zero.
+     */
+    private static final int FCONST_0 = 0x0b;
+    /**
+     * Opcode {@code dconst_0}, pushes {@code double} zero.
+     */
+    private static final int DCONST_0 = 0x0e;
+    /**
+     * Opcode {@code iload}, loads {@code int} local variable.
+     */
+    private static final int ILOAD = 0x15;
+    /**
+     * Opcode {@code lload}, loads {@code long} local variable.
+     */
+    private static final int LLOAD = 0x16;
+    /**
+     * Opcode {@code fload}, loads {@code float} local variable.
+     */
+    private static final int FLOAD = 0x17;
+    /**
+     * Opcode {@code dload}, loads {@code double} local variable.
+     */
+    private static final int DLOAD = 0x18;
+    /**
+     * Opcode {@code aload}, loads reference local variable.
+     */
+    private static final int ALOAD = 0x19;
+    /**
+     * Opcode {@code aload_0}, loads {@code this}.
+     */
+    private static final int ALOAD_0 = 0x2a;
+    /**
+     * Opcode {@code ireturn}, returns {@code int}.
+     */
+    private static final int IRETURN = 0xac;
+    /**
+     * Opcode {@code lreturn}, returns {@code long}.
+     */
+    private static final int LRETURN = 0xad;
+    /**
+     * Opcode {@code freturn}, returns {@code float}.
+     */
+    private static final int FRETURN = 0xae;
+    /**
+     * Opcode {@code dreturn}, returns {@code double}.
+     */
+    private static final int DRETURN = 0xaf;
+    /**
+     * Opcode {@code areturn}, returns reference.
+     */
+    private static final int ARETURN = 0xb0;
+    /**
+     * Opcode {@code return}, returns from {@code void} method.
+     */
+    private static final int RETURN = 0xb1;
+    /**
+     * Opcode {@code invokespecial}, calls constructor of superclass.
+     */
+    private static final int INVOKESPECIAL = 0xb7;
+
+    /**
+     * Constant pool of generated class.
+     */
+    private final ConstantPool pool = new ConstantPool();
+    /**
+     * Serialized methods.
+     */
+    private final ByteArrayOutputStream methods = new ByteArrayOutputStream();
+    /**
+     * Number of written methods.
+     */
+    private int methodCount;
+
+    /**
+     * Internal name of superclass.
+     */
+    private final String superName;
+    /**
+     * Constant pool index of generated class.
+     */
+    private final int thisClass;
+    /**
+     * Constant pool index of superclass.
+     */
+    private final int superClass;
+    /**
+     * Constant pool indices of implemented interfaces.
+     */
+    private final List<Integer> interfaces = new ArrayList<>();
+
+    /**
+     * Creates writer of class {@code className} that extends or implements {@code token}.
+     *
+     * @param className binary name of generated class
+     * @param token     class or interface to implement
+     */
+    BytecodeWriter(String className, Class<?> token) {
+        thisClass = pool.classConstant(className.replace('.', '/'));
+        superName = internalName(token.isInterface() ? Object.class : token);
+        superClass = pool.classConstant(superName);
+        if (token.isInterface()) {
+            interfaces.add(pool.classConstant(internalName(token)));
+        }
+    }
+
+    /**
+     * Returns internal name of class.
+     *
+     * @param token class that is not primitive
+     * @return {@link String} representing internal name
+     */
+    private static String internalName(Class<?> token) {
+        return token.getName().replace('.', '/');
+    }
+
+    /**
+     * Returns type descriptor of class.
+     *
+     * @param token class, primitive or {@code void} type
+     * @return {@link String} representing descriptor
+     */
+    private static String descriptor(Class<?> token) {
+        if (token.isPrimitive()) {
+            return switch (token.getName()) {
+                case "boolean" -> "Z";
+                case "byte" -> "B";
+                case "char" -> "C";
+                case "short" -> "S";
+                case "int" -> "I";
+                case "long" -> "J";
+                case "float" -> "F";
+                case "double" -> "D";
+                default -> "V";
+            };
+        }
+        return token.isArray() ? internalName(token) : "L" + internalName(token) + ";";
+    }
+
+    /**
+     * Returns method descriptor.
+     *
+     * @param parameterTypes types of parameters
+     * @param returnType     return type
+     * @return {@link String} representing descriptor
+     */
+    private static String descriptor(Class<?>[] parameterTypes, Class<?> returnType) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> type : parameterTypes) {
+            sb.append(descriptor(type));
+        }
+        return sb.append(")").append(descriptor(returnType)).toString();
+    }
+
+    /**
+     * Returns number of local variable slots taken by value of type.
+     *
+     * @param token type of value
+     * @return 2 for {@code long} and {@code double}, 1 otherwise
+     */
+    private static int slots(Class<?> token) {
+        return token == long.class || token == double.class ? 2 : 1;
+    }
+
+    /**
+     * Appends instruction loading local variable of given type.
+     *
+     * @param code buffer of code
+     * @param type type of variable
+     * @param slot slot of variable
+     */
+    private static void load(ByteArrayOutputStream code, Class<?> type, int slot) {
+        int opcode;
+        if (type == long.class) {
+            opcode = LLOAD;
+        } else if (type == float.class) {
+            opcode = FLOAD;
+        } else if (type == double.class) {
+            opcode = DLOAD;
+        } else if (type.isPrimitive()) {
+            opcode = ILOAD;
+        } else {
+            opcode = ALOAD;
+        }
+        if (slot > 0xff) {
+            code.write(0xc4);
+            code.write(opcode);
+            code.write(slot >> 8);
+        } else {
+            code.write(opcode);
+        }
+        code.write(slot);
+    }
+
+    /**
+     * Appends instructions returning default value of type.
+     *
+     * @param code buffer of code
+     * @param type return type
+     */
+    private static void returnDefault(ByteArrayOutputStream code, Class<?> type) {
+        if (type == void.class) {
+            code.write(RETURN);
+        } else if (type == long.class) {
+            code.write(LCONST_0);
+            code.write(LRETURN);
+        } else if (type == float.class) {
+            code.write(FCONST_0);
+            code.write(FRETURN);
+        } else if (type == double.class) {
+            code.write(DCONST_0);
+            code.write(DRETURN);
+        } else if (type.isPrimitive()) {
+            code.write(ICONST_0);
+            code.write(IRETURN);
+        } else {
+            code.write(ACONST_NULL);
+            code.write(ARETURN);
+        }
+    }
+
+    /**
+     * Appends public method with given code.
+     *
+     * @param name           name of method
+     * @param descriptor     descriptor of method
+     * @param exceptionTypes declared exceptions
+     * @param maxStack       maximal depth of operand stack
+     * @param maxLocals      number of local variable slots
+     * @param code           bytecode of method
+     */
+    private void addMethod(String name, String descriptor, Class<?>[] exceptionTypes,
+                           int maxStack, int maxLocals, byte[] code) {
+        int nameIndex = pool.utf8Constant(name);
+        int descriptorIndex = pool.utf8Constant(descriptor);
+        int codeIndex = pool.utf8Constant("Code");
+        int[] exceptions = new int[exceptionTypes.length];
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = pool.classConstant(internalName(exceptionTypes[i]));
+        }
+        int exceptionsIndex = exceptions.length > 0 ? pool.utf8Constant("Exceptions") : 0;
+        try (DataOutputStream out = new DataOutputStream(methods)) {
+            out.writeShort(METHOD_ACCESS);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+            out.writeShort(exceptions.length > 0 ? 2 : 1);
+            out.writeShort(codeIndex);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);
+            out.writeShort(0);
+            if (exceptions.length > 0) {
+                out.writeShort(exceptionsIndex);
+                out.writeInt(2 + 2 * exceptions.length);
+                out.writeShort(exceptions.length);
+                for (int exception : exceptions) {
+                    out.writeShort(exception);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methodCount++;
+    }
+
+    /**
+     * Writes constructor that passes all its arguments to constructor of superclass with same parameters.
+     *
+     * @param parameterTypes types of parameters
+     * @param exceptionTypes declared exceptions
+     */
+    void writeConstructor(Class<?>[] parameterTypes, Class<?>[] exceptionTypes) {
+        String descriptor = descriptor(parameterTypes, void.class);
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        code.write(ALOAD_0);
+        int slot = 1;
+        for (Class<?> type : parameterTypes) {
+            load(code, type, slot);
+            slot += slots(type);
+        }
+        int method = pool.methodConstant(superName, "<init>", descriptor);
+        code.write(INVOKESPECIAL);
+        code.write(method >> 8);
+        code.write(method);
+        code.write(RETURN);
+        addMethod("<init>", descriptor, exceptionTypes, slot, slot, code.toByteArray());
+    }
+
+    /**
+     * Writes method that returns default value of its return type.
+     *
+     * @param name           name of method
+     * @param parameterTypes types of parameters
+     * @param returnType     return type
+     * @param exceptionTypes declared exceptions
+     */
+    void writeMethod(String name, Class<?>[] parameterTypes, Class<?> returnType, Class<?>[] exceptionTypes) {
+        int slot = 1;
+        for (Class<?> type : parameterTypes) {
+            slot += slots(type);
+        }
+        ByteArrayOutputStream code = new ByteArrayOutputStream();
+        returnDefault(code, returnType);
+        addMethod(name, descriptor(parameterTypes, returnType), exceptionTypes, slots(returnType), slot,
+                code.toByteArray());
+    }
+
+    /**
+     * Returns bytes of class file.
+     *
+     * @return class file
+     */
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            pool.writeTo(out);
+            out.writeShort(CLASS_ACCESS);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (int index : interfaces) {
+                out.writeShort(index);
+            }
+            out.writeShort(0);
+            out.writeShort(methodCount);
+            methods.writeTo(out);
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
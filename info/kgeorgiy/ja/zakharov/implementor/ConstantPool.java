@@ -0,0 +1,130 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constant pool of class file. Every constant is added once, repeated requests return index of existing entry.
+ */
+class ConstantPool {
+    /**
+     * Tag {@code CONSTANT_Utf8} of string constant.
+     */
+    private static final int UTF8 = 1;
+    /**
+     * Tag {@code CONSTANT_Class} of class or interface reference.
+     */
+    private static final int CLASS = 7;
+    /**
+     * Tag {@code CONSTANT_Methodref} of method reference.
+     */
+    private static final int METHOD_REF = 10;
+    /**
+     * Tag {@code CONSTANT_NameAndType} of name and descriptor of field or method.
+     */
+    private static final int NAME_AND_TYPE = 12;
+
+    /**
+     * Serialized constant pool entries.
+     */
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    /**
+     * Indices of already added constant pool entries by their unique descriptions.
+     */
+    private final Map<String, Integer> constants = new HashMap<>();
+    /**
+     * Number of constant pool slots used, including reserved zero slot.
+     */
+    private int size = 1;
+
+    /**
+     * Adds constant to pool, if it is absent.
+     *
+     * @param key   unique description of constant
+     * @param entry serialized constant
+     * @return index of constant in pool
+     */
+    private int constant(String key, byte[] entry) {
+        Integer index = constants.get(key);
+        if (index == null) {
+            index = size++;
+            constants.put(key, index);
+            pool.writeBytes(entry);
+        }
+        return index;
+    }
+
+    /**
+     * Serializes constant pool entry.
+     *
+     * @param tag    tag of entry
+     * @param values two-byte values of entry
+     * @return bytes of entry
+     */
+    private static byte[] entry(int tag, int... values) {
+        byte[] entry = new byte[1 + 2 * values.length];
+        entry[0] = (byte) tag;
+        for (int i = 0; i < values.length; i++) {
+            entry[1 + 2 * i] = (byte) (values[i] >> 8);
+            entry[2 + 2 * i] = (byte) values[i];
+        }
+        return entry;
+    }
+
+    /**
+     * Adds string constant, used for names, descriptors and attribute names.
+     *
+     * @param value string, encoded in modified UTF-8
+     * @return index of constant in pool
+     */
+    int utf8Constant(String value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(UTF8);
+            out.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return constant("U" + value, bytes.toByteArray());
+    }
+
+    /**
+     * Adds reference to class or interface.
+     *
+     * @param internalName internal name of class, with slashes instead of dots
+     * @return index of constant in pool
+     */
+    int classConstant(String internalName) {
+        return constant("C" + internalName, entry(CLASS, utf8Constant(internalName)));
+    }
+
+    /**
+     * Adds reference to method of class, together with its name and type.
+     *
+     * @param owner      internal name of class declaring method
+     * @param name       name of method
+     * @param descriptor descriptor of method
+     * @return index of constant in pool
+     */
+    int methodConstant(String owner, String name, String descriptor) {
+        int nameAndType = constant("N" + name + ":" + descriptor,
+                entry(NAME_AND_TYPE, utf8Constant(name), utf8Constant(descriptor)));
+        return constant("M" + owner + "." + name + ":" + descriptor,
+                entry(METHOD_REF, classConstant(owner), nameAndType));
+    }
+
+    /**
+     * Writes number of slots and entries of pool, as they appear in class file.
+     *
+     * @param out stream of class file
+     * @throws IOException if stream cannot be written
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeShort(size);
+        pool.writeTo(out);
+    }
+}
@@ -0,0 +1,241 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of compiled implementations, keyed by fingerprint of implemented class.
+ * Every entry is stored in separate file of cache directory, so cache survives restarts. Cache is bounded and evicts
+ * least recently used entries, recency is kept in modification time of files. Unreadable entries are treated as
+ * absent. Thread-safe.
+ */
+public class ImplementationCache {
+    /**
+     * Extension of entry files.
+     */
+    private static final String EXTENSION = ".impl";
+    /**
+     * Magic number of entry files.
+     */
+    private static final int MAGIC = 0x494D504C;
+
+    /**
+     * Directory of entries.
+     */
+    private final Path directory;
+    /**
+     * Maximal number of entries.
+     */
+    private final int capacity;
+    /**
+     * Fingerprints of entries in order of access.
+     */
+    private final LinkedHashMap<String, Boolean> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Number of implementations found in cache.
+     */
+    private long hits;
+    /**
+     * Number of implementations not found in cache.
+     */
+    private long misses;
+    /**
+     * Number of entries evicted because of size limit.
+     */
+    private long evictions;
+    /**
+     * Number of entries that could not be written.
+     */
+    private long writeFailures;
+
+    /**
+     * Statistics of cache.
+     *
+     * @param hits          number of implementations found in cache
+     * @param misses        number of implementations not found in cache
+     * @param evictions     number of entries evicted because of size limit
+     * @param writeFailures number of entries that could not be written
+     * @param size          number of entries
+     */
+    public record Stats(long hits, long misses, long evictions, long writeFailures, int size) {
+    }
+
+    /**
+     * Creates cache of at most {@code capacity} entries in {@code directory}. Entries already stored in directory
+     * are reused.
+     *
+     * @param directory directory of cache, created if absent
+     * @param capacity  maximal number of entries
+     * @throws IOException if directory cannot be created or read
+     */
+    public ImplementationCache(Path directory, int capacity) throws IOException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.capacity = capacity;
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : files) {
+            times.put(file, Files.getLastModifiedTime(file));
+        }
+        files.stream().sorted(Comparator.comparing(times::get)).forEach(file -> {
+            String name = file.getFileName().toString();
+            entries.put(name.substring(0, name.length() - EXTENSION.length()), Boolean.TRUE);
+        });
+        evict();
+    }
+
+    /**
+     * Returns file of entry.
+     *
+     * @param fingerprint fingerprint of entry
+     * @return {@link Path} to file
+     */
+    private Path file(String fingerprint) {
+        return directory.resolve(fingerprint + EXTENSION);
+    }
+
+    /**
+     * Returns compiled classes stored for {@code fingerprint}.
+     *
+     * @param fingerprint fingerprint of implemented class
+     * @return {@link Map} from binary name to bytes of class, or {@code null} if entry is absent
+     */
+    public synchronized Map<String, byte[]> get(String fingerprint) {
+        if (entries.get(fingerprint) != null) {
+            Path file = file(fingerprint);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                Map<String, byte[]> classes = read(in);
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                hits++;
+                return classes;
+            } catch (IOException e) {
+                remove(fingerprint);
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores compiled classes for {@code fingerprint}, evicting least recently used entries if cache is full.
+     * Entry is written to temporary file and moved to its place, so concurrent readers never see partial entry.
+     * Failures to write are counted in {@link #stats()}.
+     *
+     * @param fingerprint fingerprint of implemented class
+     * @param classes     {@link Map} from binary name to bytes of class
+     * @throws IOException if entry cannot be written
+     */
+    public synchronized void put(String fingerprint, Map<String, byte[]> classes) throws IOException {
+        try {
+            Path temp = Files.createTempFile(directory, fingerprint, ".tmp");
+            try {
+                try (DataOutputStream out =
+                             new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    write(out, classes);
+                }
+                Files.move(temp, file(fingerprint), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            writeFailures++;
+            throw e;
+        }
+        entries.put(fingerprint, Boolean.TRUE);
+        evict();
+    }
+
+    /**
+     * Removes least recently used entries until size of cache is at most capacity.
+     */
+    private void evict() {
+        Iterator<String> iterator = entries.keySet().iterator();
+        while (entries.size() > capacity) {
+            String fingerprint = iterator.next();
+            iterator.remove();
+            try {
+                Files.deleteIfExists(file(fingerprint));
+            } catch (IOException ignored) {
+            }
+            evictions++;
+        }
+    }
+
+    /**
+     * Removes unreadable entry.
+     *
+     * @param fingerprint fingerprint of entry
+     */
+    private void remove(String fingerprint) {
+        entries.remove(fingerprint);
+        try {
+            Files.deleteIfExists(file(fingerprint));
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Writes entry: magic number, number of classes, then binary name, length and bytes of every class.
+     *
+     * @param out     stream to write entry to
+     * @param classes {@link Map} from binary name to bytes of class
+     * @throws IOException if entry cannot be written
+     */
+    private static void write(DataOutputStream out, Map<String, byte[]> classes) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(classes.size());
+        for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeInt(entry.getValue().length);
+            out.write(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads entry written by {@link #write(DataOutputStream, Map)}.
+     *
+     * @param in stream to read entry from
+     * @return {@link Map} from binary name to bytes of class
+     * @throws IOException if entry cannot be read or is invalid
+     */
+    private static Map<String, byte[]> read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid cache entry");
+        }
+        int size = in.readInt();
+        if (size < 0) {
+            throw new IOException("Invalid cache entry");
+        }
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = in.readUTF();
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid cache entry");
+            }
+            classes.put(name, in.readNBytes(length));
+            if (classes.get(name).length != length) {
+                throw new EOFException("Truncated cache entry");
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Returns statistics of cache since its creation.
+     *
+     * @return {@link Stats} of cache
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, writeFailures, entries.size());
+    }
+}
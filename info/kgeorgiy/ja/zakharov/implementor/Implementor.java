@@ -1,30 +1,36 @@
 package info.kgeorgiy.ja.zakharov.implementor;
 
+import info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism;
 import info.kgeorgiy.java.advanced.implementor.ImplerException;
 import info.kgeorgiy.java.advanced.implementor.JarImpler;
 
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
 import javax.tools.ToolProvider;
 import java.io.*;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.*;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.jar.Attributes;
-import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.stream.Collectors;
 
 import static info.kgeorgiy.ja.zakharov.implementor.ImplementorUtilities.TAB;
-import static info.kgeorgiy.ja.zakharov.implementor.ImplementorUtilities.newLine;
 
 /**
  * The Implementor class is used to create implementation of classes
  * using method {@link Implementor#implement(Class, Path)} creates .java file that implements or extends {@code Class}
  * using method {@link Implementor#implementJar(Class, Path)} creates .jar file that implements or extends {@code Class}
+ * using method {@link Implementor#implementJar(List, Path, int)} creates .jar file with implementations of many classes
+ * using method {@link Implementor#implementJar(List, Path, int, JarOptions)} creates stored or multi-release .jar file
+ * using method {@link Implementor#defineClass(Class)} defines implementation at runtime without compiler
  */
 public class Implementor implements JarImpler {
     /**
@@ -46,9 +52,80 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Creates new instance of {@link Implementor}.
+     * Way to produce compiled implementations.
+     */
+    public enum Backend {
+        /**
+         * Source code is generated and compiled by {@link JavaCompiler}.
+         */
+        JAVAC,
+        /**
+         * Class files are generated directly, without compiler.
+         */
+        BYTECODE
+    }
+
+    /**
+     * Layout of generated .jar files.
+     *
+     * @param compressed {@code true} to deflate entries, {@code false} to store them uncompressed, that is faster
+     *                   to write and to load
+     * @param release    Java release of multi-release jar, which directory {@code META-INF/versions} contains
+     *                   implementations, or {@code 0} to put them in root of jar
+     */
+    public record JarOptions(boolean compressed, int release) {
+        /**
+         * Compressed jar.
+         */
+        public static final JarOptions DEFAULT = new JarOptions(true, 0);
+
+        /**
+         * Checks options.
+         *
+         * @throws IllegalArgumentException if {@code release} is neither {@code 0} nor at least {@code 9}
+         */
+        public JarOptions {
+            if (release != 0 && release < 9) {
+                throw new IllegalArgumentException("Release of multi-release jar should be at least 9: " + release);
+            }
+        }
+    }
+
+    /**
+     * Backend producing compiled implementations.
+     */
+    private final Backend backend;
+    /**
+     * Cache of compiled implementations or {@code null}.
+     */
+    private final ImplementationCache cache;
+
+    /**
+     * Creates new instance of {@link Implementor}, that compiles implementations by {@link JavaCompiler}.
      */
     public Implementor() {
+        this(Backend.JAVAC);
+    }
+
+    /**
+     * Creates new instance of {@link Implementor} with given backend of compiled implementations.
+     *
+     * @param backend way to produce compiled implementations
+     */
+    public Implementor(Backend backend) {
+        this(backend, null);
+    }
+
+    /**
+     * Creates new instance of {@link Implementor} with given backend, that reuses compiled implementations from
+     * {@code cache}, while API of implemented classes doesn't change.
+     *
+     * @param backend way to produce compiled implementations
+     * @param cache   cache of compiled implementations or {@code null} to compile every time
+     */
+    public Implementor(Backend backend, ImplementationCache cache) {
+        this.backend = Objects.requireNonNull(backend);
+        this.cache = cache;
     }
 
     /**
@@ -59,7 +136,7 @@ public class Implementor implements JarImpler {
      * @return method with narow return type
      */
 
-    private Method getNarrow(Method method1, Method method2) {
+    private static Method getNarrow(Method method1, Method method2) {
         if (method1 == null) {
             return method2;
         }
@@ -70,52 +147,101 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Gets methods from class and returns {@link Map} of methods that gets from getter and satisfies predicate, if
-     * class has multiple methods with the same signature in map will be lie method with narrow return type.
+     * Abstract and final method signatures of some methods.
      *
-     * @param token     class to get methods
-     * @param predicate {@link Predicate} to filter methods
-     * @param getter    {@link Function} to get methods
-     * @return {@link Map} from {@link MethodWrapper} to {@link Method} of methods from getter satisfies a predicate
+     * @param abstractMethods abstract methods by signature, method with narrow return type for every signature
+     * @param returnTypes     return types of all abstract methods with same signature
+     * @param finalMethods    signatures of final methods
      */
-    private Map<MethodWrapper, Method> getMethodsMap(Class<?> token, Predicate<? super Method> predicate,
-                                                     Function<Class<?>, Method[]> getter) {
-        return Arrays.stream(getter.apply(token))
-                .filter(predicate)
-                .collect(Collectors.toMap(MethodWrapper::new, Function.identity(), this::getNarrow));
+    private record Signatures(Map<MethodWrapper, Method> abstractMethods, Map<MethodWrapper, Set<Class<?>>> returnTypes,
+                              Set<MethodWrapper> finalMethods) {
+        /**
+         * Collects signatures of {@code methods}.
+         *
+         * @param methods methods to collect
+         * @return {@link Signatures} of methods
+         */
+        static Signatures of(Method[] methods) {
+            Signatures signatures = new Signatures(new HashMap<>(), new HashMap<>(), new HashSet<>());
+            for (Method method : methods) {
+                int modifiers = method.getModifiers();
+                if (Modifier.isAbstract(modifiers)) {
+                    MethodWrapper wrapper = new MethodWrapper(method);
+                    signatures.abstractMethods.merge(wrapper, method, Implementor::getNarrow);
+                    signatures.returnTypes.computeIfAbsent(wrapper, w -> new LinkedHashSet<>())
+                            .add(method.getReturnType());
+                } else if (Modifier.isFinal(modifiers)) {
+                    signatures.finalMethods.add(new MethodWrapper(method));
+                }
+            }
+            return signatures;
+        }
+
+        /**
+         * Adds signatures of {@code other}. For same signatures methods of this are preferred, if return types are
+         * same.
+         *
+         * @param other signatures to add
+         * @return this
+         */
+        Signatures merge(Signatures other) {
+            other.abstractMethods.forEach((wrapper, method) -> abstractMethods.merge(wrapper, method,
+                    Implementor::getNarrow));
+            other.returnTypes.forEach((wrapper, types) -> returnTypes.computeIfAbsent(wrapper,
+                    w -> new LinkedHashSet<>()).addAll(types));
+            finalMethods.addAll(other.finalMethods);
+            return this;
+        }
     }
 
     /**
-     * Get all methods in {@code token} and its superclasses that satisfy a {@code predicate}, if class has several
-     * methods with same signature and different return types will be chosen with narrow return type.
+     * Methods that need to be overridden in implementation of class.
      *
-     * @param token     class to get methods
-     * @param predicate {@link Predicate} to filter methods in {}
-     * @return {@link Set} of {@link MethodWrapper}
-     * that contains all methods in {@code token}, that satisfy {@code predicate}
+     * @param methods     methods to override
+     * @param returnTypes return types of all abstract methods with same signatures
      */
-    private Set<MethodWrapper> getMethodsPredicate(Class<?> token, Predicate<? super Method> predicate) {
-        Map<MethodWrapper, Method> storage = getMethodsMap(token, predicate, Class::getMethods);
-        while (token != null) {
-            Map<MethodWrapper, Method> tmp = getMethodsMap(token, predicate, Class::getDeclaredMethods);
-            tmp.forEach(((methodWrapper, method) -> storage.merge(methodWrapper, method, this::getNarrow)));
-            token = token.getSuperclass();
-        }
-        return storage.values().stream().map(MethodWrapper::new).collect(Collectors.toSet());
+    private record Resolution(List<Method> methods, Map<MethodWrapper, Set<Class<?>>> returnTypes) {
     }
 
+    /**
+     * Signatures of methods declared in class and its superclasses. Computed once for every class, so classes with
+     * common superclasses share their signatures.
+     */
+    private static final ClassValue<Signatures> DECLARED = new ClassValue<>() {
+        @Override
+        protected Signatures computeValue(Class<?> type) {
+            Signatures signatures = Signatures.of(type.getDeclaredMethods());
+            return type.getSuperclass() == null ? signatures : signatures.merge(DECLARED.get(type.getSuperclass()));
+        }
+    };
+
+    /**
+     * Methods that need to be overridden in implementation of class, resolved once for every class.
+     */
+    private static final ClassValue<Resolution> RESOLVED = new ClassValue<>() {
+        @Override
+        protected Resolution computeValue(Class<?> type) {
+            Signatures signatures = Signatures.of(type.getMethods()).merge(DECLARED.get(type));
+            List<Method> methods = signatures.abstractMethods.entrySet().stream()
+                    .filter(entry -> !signatures.finalMethods.contains(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+            return new Resolution(methods, signatures.returnTypes);
+        }
+    };
+
     /**
      * Get all methods in {@code token} that have abstract modifier in super of {@code token} entity and doesn't have
-     * final modifier in any super of {@code token}.
+     * final modifier in any super of {@code token}. If class has several abstract methods with same signature and
+     * different return types will be chosen with narrow return type. Methods are resolved in single pass over
+     * hierarchy and cached.
      *
      * @param token class to get methods
      * @return {@link List} of {@link Method} in {@code token}
      * that need to be overridden for correct definition of {@code token} entity
      */
     private List<Method> getMethods(Class<?> token) {
-        Set<MethodWrapper> storage = getMethodsPredicate(token, method -> Modifier.isAbstract(method.getModifiers()));
-        storage.removeAll(getMethodsPredicate(token, method -> Modifier.isFinal(method.getModifiers())));
-        return storage.stream().map(MethodWrapper::method).toList();
+        return RESOLVED.get(token).methods();
     }
 
     /**
@@ -143,16 +269,6 @@ public class Implementor implements JarImpler {
                 .resolve(getClassName(token) + end);
     }
 
-    /**
-     * Returns of concatenation with canonical name and parameter name.
-     *
-     * @param parameter {@link Parameter}
-     * @return {@link String} representing value
-     */
-    private String getFullName(Parameter parameter) {
-        return parameter.getType().getCanonicalName() + " " + parameter.getName();
-    }
-
     /**
      * Gets default value of given class.
      *
@@ -167,69 +283,79 @@ public class Implementor implements JarImpler {
         } else if (token.isPrimitive()) {
             return " 0";
         }
-        if (Modifier.isPrivate(token.getModifiers())) {
-            throw new ImplerException("Return value shouldn't be null");
-        }
+        checkReturnType(token);
         return " null";
     }
 
     /**
-     * Returns {@link String} that contains body for function with return type {@code method} and returns
-     * {@link #getDefaultValue}.
+     * Checks that {@code token} can be return type of implemented method.
      *
-     * @param method {@link Method}
-     * @return {@link String} body for default implementation of {@code method}
+     * @param token return type
+     * @throws ImplerException if {@code token} is private
      */
-    private String getBody(Method method) throws ImplerException {
-        return "{" + newLine(2) +
-                "return" + getDefaultValue(method.getReturnType()) + ";" +
-                newLine(1) + "}" + newLine() + newLine();
+    private void checkReturnType(Class<?> token) throws ImplerException {
+        if (Modifier.isPrivate(token.getModifiers())) {
+            throw new ImplerException("Return value shouldn't be null");
+        }
     }
 
     /**
-     * Returns {@link StringBuilder} that contains {@code executable} with public modifier.
+     * Checks that parameters of {@code executable} can be declared in implementation.
      *
-     * @param executable {@link Executable} for getting modifiers
-     * @return {@link StringBuilder} representation value
+     * @param executable {@link Executable} to check
+     * @throws ImplerException if some of parameter types are private
      */
-    private StringBuilder getBeginOfExecutableDeclaration(Executable executable) {
-        return new StringBuilder(TAB).append("public");
+    private void checkParameters(Executable executable) throws ImplerException {
+        if (Arrays.stream(executable.getParameterTypes()).anyMatch(type -> Modifier.isPrivate(type.getModifiers()))) {
+            throw new ImplerException("Parameters should be not private classes");
+        }
     }
 
     /**
-     * Append to {@code sb} parameters which takes an {@code executable} and exceptions that {@code executable} will be thrown.
+     * Writes public modifier, parameters and exceptions of {@code executable} around its {@code name}.
+     * Parameters are checked before anything is written.
      *
-     * @param executable {@link Executable} from whom will be taken parameters
-     * @param sb         {@link StringBuilder} to which will be added end of executable definition
+     * @param executable {@link Executable} to declare
+     * @param returnType return type of method or {@code null} for constructor
+     * @param name       name of method or constructor
+     * @param writer     {@link SourceWriter} writes declaration
+     * @throws ImplerException if some of parameter types are private
      */
-    private void getEndOfExecutableDeclaration(Executable executable, StringBuilder sb) throws ImplerException {
-        sb.append("(");
-        if (Arrays.stream(executable.getParameters()).anyMatch(parameter -> Modifier.isPrivate(parameter.getType().getModifiers()))) {
-            throw new ImplerException("Parameters should be not private classes");
+    private void writeDeclaration(Executable executable, Class<?> returnType, String name, SourceWriter writer)
+            throws ImplerException {
+        checkParameters(executable);
+        writer.append(TAB).append("public ");
+        if (returnType != null) {
+            writer.appendType(returnType).append(' ');
         }
-        sb.append(Arrays.stream(executable.getParameters()).map(this::getFullName)
-                .collect(Collectors.joining(", ")));
-        sb.append(")").append(" ");
+        writer.append(name).append('(');
+        Parameter[] parameters = executable.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                writer.append(", ");
+            }
+            writer.appendType(parameters[i].getType()).append(' ').append(parameters[i].getName());
+        }
+        writer.append(") ");
         Class<?>[] exceptions = executable.getExceptionTypes();
-        if (exceptions.length > 0) {
-            sb.append("throws ").append(Arrays.stream(exceptions)
-                    .map(Class::getCanonicalName).collect(Collectors.joining(", ")));
+        for (int i = 0; i < exceptions.length; i++) {
+            writer.append(i == 0 ? "throws " : ", ").appendType(exceptions[i]);
         }
     }
 
     /**
      * Writes default definition of {@code method} by {@code writer}.
+     * Method body returns {@link #getDefaultValue}.
      *
      * @param method {@link Method} that need to write
-     * @param writer {@link Writer} that will be used for writing
-     * @throws IOException that will be thrown by writer
+     * @param writer {@link SourceWriter} that will be used for writing
+     * @throws ImplerException if some of parameter types or return type are private
      */
-    private void writeMethod(Method method, Writer writer) throws IOException, ImplerException {
-        StringBuilder output = getBeginOfExecutableDeclaration(method);
-        output.append(" ").append(method.getReturnType().getCanonicalName()).append(" ").append(method.getName());
-        getEndOfExecutableDeclaration(method, output);
-        output.append(getBody(method));
-        writer.write(output.toString());
+    private void writeMethod(Method method, SourceWriter writer) throws ImplerException {
+        writeDeclaration(method, method.getReturnType(), method.getName(), writer);
+        writer.append('{').newLine(2)
+                .append("return").append(getDefaultValue(method.getReturnType())).append(';').newLine(1)
+                .append('}').newLine(0).newLine(0);
     }
 
     /**
@@ -237,33 +363,37 @@ public class Implementor implements JarImpler {
      *
      * @param token       class which constructor need to write
      * @param constructor {@link Constructor} that need to call in body of constructor
-     * @param writer      {@link Writer} writes definition
-     * @throws IOException if {@code writer} I/O will be occurred
+     * @param writer      {@link SourceWriter} writes definition
+     * @throws ImplerException if some of parameter types are private
      */
-    private void writeConstructor(Class<?> token, Constructor<?> constructor, Writer writer) throws IOException, ImplerException {
-        StringBuilder output = getBeginOfExecutableDeclaration(constructor);
-        output.append(" ").append(getClassName(token));
-        getEndOfExecutableDeclaration(constructor, output);
-        output.append("{").append(newLine(2)).append("super(");
+    private void writeConstructor(Class<?> token, Constructor<?> constructor, SourceWriter writer)
+            throws ImplerException {
+        writeDeclaration(constructor, null, getClassName(token), writer);
+        writer.append('{').newLine(2).append("super(");
         Parameter[] parameters = constructor.getParameters();
-        output.append(Arrays.stream(parameters).map(Parameter::getName).collect(Collectors.joining(", ")));
-        output.append(");").append(newLine(1));
-        output.append("}").append(newLine()).append(newLine());
-        writer.write(output.toString());
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                writer.append(", ");
+            }
+            writer.append(parameters[i].getName());
+        }
+        writer.append(");").newLine(1)
+                .append('}').newLine(0).newLine(0);
     }
 
     /**
-     * Write default definition for {@code token} entity using {@link #writeMethod(Method, Writer)} for every method
-     * that need to be overridden.
+     * Write default definition for {@code token} entity using {@link #writeMethod(Method, SourceWriter)} for every
+     * method that need to be overridden.
      *
      * @param token  class which methods need to write
-     * @param writer {@link Writer} writes definition
+     * @param writer {@link SourceWriter} writes definition
      * @throws IOException if {@code writer} I/O will be occurred
      */
-    private void writeMethods(Class<?> token, Writer writer) throws IOException, ImplerException {
+    private void writeMethods(Class<?> token, SourceWriter writer) throws IOException, ImplerException {
         List<Method> methods = getMethods(token);
         for (Method method : methods) {
             writeMethod(method, writer);
+            writer.flushIfFull();
         }
     }
 
@@ -282,11 +412,11 @@ public class Implementor implements JarImpler {
      * Writes possible implementation of all not private constructors declared in class.
      *
      * @param token  class which constructors need to write
-     * @param writer {@link Writer} writes definition
+     * @param writer {@link SourceWriter} writes definition
      * @throws IOException     if I\O was occurred
      * @throws ImplerException if class not interface and contains only private constructors
      */
-    private void writeConstructors(Class<?> token, Writer writer) throws IOException, ImplerException {
+    private void writeConstructors(Class<?> token, SourceWriter writer) throws IOException, ImplerException {
         if (!token.isInterface()) {
             List<Constructor<?>> constructors = getConstructors(token);
             if (constructors.size() == 0) {
@@ -294,6 +424,7 @@ public class Implementor implements JarImpler {
             }
             for (Constructor<?> constructor : constructors) {
                 writeConstructor(token, constructor, writer);
+                writer.flushIfFull();
             }
         }
     }
@@ -313,41 +444,22 @@ public class Implementor implements JarImpler {
         }
     }
 
-    /**
-     * Construct {@link String} package of given class.
-     *
-     * @param token class or interface for getting package
-     * @return {@link String} representing package
-     */
-    private String getPackage(Class<?> token) {
-        StringBuilder sb = new StringBuilder();
-        if (!token.getPackage().getName().equals("")) {
-            sb.append("package ").append(token.getPackageName()).append(";").append(newLine()).append(newLine());
-        }
-        return sb.toString();
-    }
-
     /**
      * Write first {@link String} begin of class definition: package, name, implements or extends, superClass.
      *
      * @param token  class or interface - super of class
-     * @param writer {@link Writer} writes definition
-     * @throws IOException if I\O was occurred
+     * @param writer {@link SourceWriter} writes definition
      */
-    private void writeClassHeader(Class<?> token, Writer writer) throws IOException {
-        StringBuilder sb = new StringBuilder(getPackage(token));
-        sb.append("public class ").append(getClassName(token)).append(" ");
-        if (token.isInterface()) {
-            sb.append("implements ");
-        } else {
-            sb.append("extends ");
+    private void writeClassHeader(Class<?> token, SourceWriter writer) {
+        if (!token.getPackageName().isEmpty()) {
+            writer.append("package ").append(token.getPackageName()).append(';').newLine(0).newLine(0);
         }
-        sb.append(token.getCanonicalName());
-        sb.append(" {").append(newLine());
-        writer.write(sb.toString());
+        writer.append("public class ").append(getClassName(token)).append(' ')
+                .append(token.isInterface() ? "implements " : "extends ")
+                .appendType(token)
+                .append(" {").newLine(0);
     }
 
-
     /**
      * Creates a possible implementation of class in {@code token} entity.
      * Generated class full name same as full name of the type token with "Impl" suffix added.
@@ -366,18 +478,12 @@ public class Implementor implements JarImpler {
     public void implement(Class<?> token, Path root) throws ImplerException {
         Objects.requireNonNull(token);
         Objects.requireNonNull(root);
-        if (token.isArray() || token.isPrimitive() || token == Enum.class
-                || Modifier.isFinal(token.getModifiers()) || Modifier.isPrivate(token.getModifiers())) {
-            throw new ImplerException("Token must be interface or class");
-        }
+        checkToken(token);
         Path rootPath = getFilePath(root, token, ".java");
         createDirectories(rootPath);
         try (BufferedWriter writer = Files.newBufferedWriter(rootPath)) {
             try {
-                writeClassHeader(token, writer);
-                writeConstructors(token, writer);
-                writeMethods(token, writer);
-                writer.write("}" + newLine());
+                write(token, writer);
             } catch (IOException e) {
                 throw new ImplerException("Exception in writing java file: " + e);
             }
@@ -387,18 +493,142 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Cleans all files and directory in directory {@code root}.
+     * Checks that {@code token} can be implemented.
      *
-     * @param root start directory
-     * @throws IOException if I/O was occurred
+     * @param token type token to create implementation for
+     * @throws ImplerException if given {@code token} is Enum, Array, Primitive, Final class or Private class
      */
-    private static void clean(final Path root) throws IOException {
-        if (root == null) {
-            return;
+    private void checkToken(Class<?> token) throws ImplerException {
+        if (token.isArray() || token.isPrimitive() || token == Enum.class
+                || Modifier.isFinal(token.getModifiers()) || Modifier.isPrivate(token.getModifiers())) {
+            throw new ImplerException("Token must be interface or class");
+        }
+    }
+
+    /**
+     * Writes implementation of {@code token} by {@code writer}.
+     *
+     * @param token  class or interface to implement
+     * @param writer {@link Writer} writes definition
+     * @throws IOException     if I/O error occurred
+     * @throws ImplerException if implementation cannot be generated
+     */
+    private void write(Class<?> token, Writer writer) throws IOException, ImplerException {
+        SourceWriter source = new SourceWriter(writer);
+        writeClassHeader(token, source);
+        writeConstructors(token, source);
+        writeMethods(token, source);
+        source.append('}').newLine(0);
+        source.flush();
+    }
+
+    /**
+     * Returns class file of implementation of {@code token}, generated without compiler.
+     * Implementation is same, as would be compiled from {@link #implement(Class, Path)}: constructors call
+     * constructors of superclass with same arguments, methods return default values. For every overridden method
+     * overloads by return type are implemented too, like bridge methods generated by compiler.
+     *
+     * @param token class or interface to implement
+     * @return bytes of class file
+     * @throws ImplerException if the given class cannot be implemented for same reasons,
+     *                         as in {@link #implement(Class, Path)}
+     */
+    public byte[] generateClass(Class<?> token) throws ImplerException {
+        Objects.requireNonNull(token);
+        checkToken(token);
+        BytecodeWriter writer = new BytecodeWriter(getImplName(token), token);
+        if (token.isInterface()) {
+            writer.writeConstructor(new Class<?>[0], new Class<?>[0]);
+        } else {
+            List<Constructor<?>> constructors = getConstructors(token);
+            if (constructors.isEmpty()) {
+                throw new ImplerException("Number of constructors must be not zero");
+            }
+            for (Constructor<?> constructor : constructors) {
+                checkParameters(constructor);
+                writer.writeConstructor(constructor.getParameterTypes(), constructor.getExceptionTypes());
+            }
         }
-        if (Files.exists(root)) {
-            Files.walkFileTree(root, ImplementorUtilities.DELETE_VISITOR);
+        for (Method method : getMethods(token)) {
+            checkParameters(method);
+            checkReturnType(method.getReturnType());
+            Set<Class<?>> returnTypes = new LinkedHashSet<>();
+            returnTypes.add(method.getReturnType());
+            returnTypes.addAll(getBridgeReturnTypes(token, method));
+            for (Class<?> returnType : returnTypes) {
+                writer.writeMethod(method.getName(), method.getParameterTypes(), returnType,
+                        method.getExceptionTypes());
+            }
         }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Returns other return types of abstract methods of {@code token} with same signature as {@code method}.
+     *
+     * @param token  class or interface to implement
+     * @param method method to implement
+     * @return {@link Set} of return types
+     */
+    private Set<Class<?>> getBridgeReturnTypes(Class<?> token, Method method) {
+        Set<Class<?>> returnTypes = new LinkedHashSet<>(RESOLVED.get(token).returnTypes()
+                .getOrDefault(new MethodWrapper(method), Set.of()));
+        returnTypes.remove(method.getReturnType());
+        return returnTypes;
+    }
+
+    /**
+     * Generates implementation of {@code token} by {@link #generateClass(Class)} and defines it by {@code lookup}.
+     *
+     * @param token  class or interface to implement
+     * @param lookup lookup with {@link MethodHandles.Lookup#PACKAGE} access in package of {@code token}
+     * @return defined implementation
+     * @throws ImplerException if implementation cannot be generated or defined by {@code lookup}
+     */
+    public Class<?> defineClass(Class<?> token, MethodHandles.Lookup lookup) throws ImplerException {
+        Objects.requireNonNull(lookup);
+        byte[] bytes = generateClass(token);
+        try {
+            return lookup.defineClass(bytes);
+        } catch (IllegalAccessException | LinkageError e) {
+            throw new ImplerException("Cannot define implementation: " + e);
+        }
+    }
+
+    /**
+     * Generates implementation of {@code token} by {@link #generateClass(Class)} and defines it in package and
+     * class loader of {@code token}. Package of {@code token} should be open to this module.
+     *
+     * @param token class or interface to implement
+     * @return defined implementation
+     * @throws ImplerException if implementation cannot be generated or package of {@code token} is not open
+     */
+    public Class<?> defineClass(Class<?> token) throws ImplerException {
+        Objects.requireNonNull(token);
+        Implementor.class.getModule().addReads(token.getModule());
+        try {
+            return defineClass(token, MethodHandles.privateLookupIn(token, MethodHandles.lookup()));
+        } catch (IllegalAccessException e) {
+            throw new ImplerException("Cannot access package of " + token.getCanonicalName() + ": " + e);
+        }
+    }
+
+    /**
+     * Returns source code of implementation of {@code token}.
+     *
+     * @param token class or interface to implement
+     * @return {@link String} with source code
+     * @throws ImplerException if implementation cannot be generated
+     */
+    private String generate(Class<?> token) throws ImplerException {
+        checkToken(token);
+        StringWriter writer = new StringWriter();
+        try {
+            write(token, writer);
+        } catch (IOException e) {
+            throw new ImplerException("Exception in writing source: " + e);
+        }
+        return writer.toString();
     }
 
     /**
@@ -416,12 +646,341 @@ public class Implementor implements JarImpler {
         }
     }
 
+    /**
+     * Returns class-path for dependencies of all {@code tokens}. Classes without code source, like classes of
+     * platform modules, are available to compiler without class-path.
+     *
+     * @param tokens classes for which dependencies need to find
+     * @return {@link String} representation of value.
+     * @throws ImplerException if classes wasn't find
+     */
+    private String getClassPath(Collection<Class<?>> tokens) throws ImplerException {
+        Set<String> classPath = new LinkedHashSet<>();
+        for (Class<?> token : tokens) {
+            if (token.getProtectionDomain().getCodeSource() != null) {
+                classPath.add(getClassPath(token));
+            }
+        }
+        return String.join(File.pathSeparator, classPath);
+    }
+
+    /**
+     * Returns binary name of implementation of {@code token}.
+     *
+     * @param token class or interface that is implemented
+     * @return {@link String} representing binary name
+     */
+    private String getImplName(Class<?> token) {
+        String packageName = token.getPackageName();
+        return (packageName.isEmpty() ? "" : packageName + ".") + getClassName(token);
+    }
+
+    /**
+     * Checks that implementations of {@code tokens} have different names.
+     *
+     * @param tokens classes or interfaces to implement
+     * @throws ImplerException if some of tokens are {@code null} or have implementations with same name
+     */
+    private void checkTokens(Collection<Class<?>> tokens) throws ImplerException {
+        Set<String> names = new HashSet<>();
+        for (Class<?> token : tokens) {
+            if (token == null) {
+                throw new ImplerException("Token shouldn't be null");
+            }
+            if (!names.add(getImplName(token))) {
+                throw new ImplerException("Implementations have same name: " + getImplName(token));
+            }
+        }
+    }
+
+    /**
+     * Function that may fail to implement class.
+     *
+     * @param <R> type of result
+     */
+    @FunctionalInterface
+    private interface Generator<R> {
+        /**
+         * Generates implementation of {@code token}.
+         *
+         * @param token class or interface to implement
+         * @return generated implementation
+         * @throws ImplerException if implementation cannot be generated
+         */
+        R generate(Class<?> token) throws ImplerException;
+    }
+
+    /**
+     * Applies {@code generator} to all {@code tokens} in {@code threads} threads.
+     *
+     * @param tokens    classes or interfaces to implement
+     * @param threads   number of threads
+     * @param generator generator of implementations
+     * @param <R>       type of generated implementations
+     * @return {@link List} of implementations in order of {@code tokens}
+     * @throws ImplerException if some of implementations cannot be generated, others are suppressed
+     */
+    private <R> List<R> map(List<Class<?>> tokens, int threads, Generator<R> generator) throws ImplerException {
+        List<ImplerException> errors = Collections.synchronizedList(new ArrayList<>());
+        List<R> results;
+        try {
+            results = new IterativeParallelism().map(threads, tokens, token -> {
+                try {
+                    return generator.generate(token);
+                } catch (ImplerException e) {
+                    errors.add(new ImplerException("Cannot implement " + token.getCanonicalName() + ": "
+                            + e.getMessage()));
+                    return null;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImplerException("Interrupted while generating implementations");
+        }
+        if (!errors.isEmpty()) {
+            ImplerException error = errors.get(0);
+            errors.subList(1, errors.size()).forEach(error::addSuppressed);
+            throw error;
+        }
+        if (results.contains(null)) {
+            throw new ImplerException("Unable to generate implementations");
+        }
+        return results;
+    }
+
+    /**
+     * Generates implementations of all {@code tokens} in {@code threads} threads and compiles them.
+     * With {@link Backend#JAVAC} sources are compiled in memory by single {@link JavaCompiler} task,
+     * with {@link Backend#BYTECODE} class files are generated by {@link #generateClass(Class)}.
+     * Implementations with fingerprints found in cache are not generated.
+     *
+     * @param tokens  classes or interfaces to implement
+     * @param threads number of threads to generate sources
+     * @return {@link Map} from binary name to bytes of every compiled class
+     * @throws ImplerException if some of implementations cannot be generated or compiled
+     */
+    private Map<String, byte[]> compile(List<Class<?>> tokens, int threads) throws ImplerException {
+        if (cache == null) {
+            return compileAll(tokens, threads);
+        }
+        List<String> fingerprints = map(tokens, threads, this::getFingerprint);
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        List<Class<?>> missing = new ArrayList<>();
+        List<String> missingFingerprints = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            Map<String, byte[]> cached = cache.get(fingerprints.get(i));
+            if (cached != null) {
+                result.putAll(cached);
+            } else {
+                missing.add(tokens.get(i));
+                missingFingerprints.add(fingerprints.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<String, byte[]> compiled = compileAll(missing, threads);
+            Map<Class<?>, Map<String, byte[]>> grouped = getClasses(missing, compiled);
+            for (int i = 0; i < missing.size(); i++) {
+                try {
+                    cache.put(missingFingerprints.get(i), grouped.get(missing.get(i)));
+                } catch (IOException ignored) {
+                    // Implementation is compiled anyway, failure is counted in cache stats
+                }
+            }
+            result.putAll(compiled);
+        }
+        return result;
+    }
+
+    /**
+     * Generates implementations of all {@code tokens} in {@code threads} threads and compiles them, without cache.
+     *
+     * @param tokens  classes or interfaces to implement
+     * @param threads number of threads to generate sources
+     * @return {@link Map} from binary name to bytes of every compiled class
+     * @throws ImplerException if some of implementations cannot be generated or compiled
+     */
+    private Map<String, byte[]> compileAll(List<Class<?>> tokens, int threads) throws ImplerException {
+        if (backend == Backend.BYTECODE) {
+            List<byte[]> classes = map(tokens, threads, this::generateClass);
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            for (int i = 0; i < tokens.size(); i++) {
+                result.put(getImplName(tokens.get(i)), classes.get(i));
+            }
+            return result;
+        }
+        List<JavaFileObject> sources = map(tokens, threads,
+                token -> new InMemoryFileManager.SourceFile(getImplName(token), generate(token)));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new ImplerException("Unable to compile generated files");
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (InMemoryFileManager fileManager = new InMemoryFileManager(
+                compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))) {
+            List<String> options = List.of("-cp", getClassPath(tokens));
+            if (!compiler.getTask(null, fileManager, diagnostics, options, null, sources).call()) {
+                throw new ImplerException("Cannot compile files: " + diagnostics.getDiagnostics().stream()
+                        .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                        .map(diagnostic -> diagnostic.getMessage(Locale.ROOT))
+                        .collect(Collectors.joining("; ")));
+            }
+            return fileManager.classes();
+        } catch (IOException e) {
+            throw new ImplerException("Unable to close file manager: " + e);
+        }
+    }
+
+    /**
+     * Groups compiled classes by implementations of {@code tokens}: implementation and its nested classes.
+     * Every class is looked up by its name and names of enclosing classes, so grouping takes single pass.
+     *
+     * @param tokens  classes or interfaces that are implemented
+     * @param classes {@link Map} from binary name to bytes of compiled classes
+     * @return {@link Map} from every token to {@link Map} from binary name to bytes of classes of its implementation
+     */
+    private Map<Class<?>, Map<String, byte[]>> getClasses(List<Class<?>> tokens, Map<String, byte[]> classes) {
+        Map<String, Class<?>> owners = new HashMap<>();
+        Map<Class<?>, Map<String, byte[]>> result = new LinkedHashMap<>();
+        for (Class<?> token : tokens) {
+            owners.put(getImplName(token), token);
+            result.put(token, new LinkedHashMap<>());
+        }
+        classes.forEach((className, bytes) -> {
+            String name = className;
+            Class<?> owner = owners.get(name);
+            while (owner == null && name.lastIndexOf('$') >= 0) {
+                name = name.substring(0, name.lastIndexOf('$'));
+                owner = owners.get(name);
+            }
+            if (owner != null) {
+                result.get(owner).put(className, bytes);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns fingerprint of everything, that compiled implementation of {@code token} depends on: backend, Java
+     * version, name and kind of {@code token}, signatures and exceptions of its non-private constructors and of
+     * methods to override.
+     *
+     * @param token class or interface to implement
+     * @return hex {@link String} of SHA-256 of sorted signatures
+     * @throws ImplerException if {@code token} cannot be implemented
+     */
+    private String getFingerprint(Class<?> token) throws ImplerException {
+        checkToken(token);
+        List<String> signatures = new ArrayList<>();
+        if (!token.isInterface()) {
+            for (Constructor<?> constructor : getConstructors(token)) {
+                signatures.add("constructor " + getSignature(constructor.getParameterTypes(),
+                        constructor.getExceptionTypes()));
+            }
+        }
+        for (Method method : getMethods(token)) {
+            signatures.add("method " + method.getReturnType().getName()
+                    + getBridgeReturnTypes(token, method).stream().map(Class::getName).sorted().toList() + " "
+                    + method.getName() + getSignature(method.getParameterTypes(), method.getExceptionTypes()));
+        }
+        Collections.sort(signatures);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((backend + " " + Runtime.version().feature() + " " + token.getName()
+                    + (token.isInterface() ? " interface" : " class")).getBytes(StandardCharsets.UTF_8));
+            for (String signature : signatures) {
+                digest.update(("\n" + signature).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new ImplerException("Cannot compute fingerprint: " + e);
+        }
+    }
+
+    /**
+     * Returns description of parameters and exceptions of executable.
+     *
+     * @param parameterTypes parameter types
+     * @param exceptionTypes declared exceptions
+     * @return {@link String} representing value
+     */
+    private String getSignature(Class<?>[] parameterTypes, Class<?>[] exceptionTypes) {
+        return Arrays.stream(parameterTypes).map(Class::getName).collect(Collectors.joining(",", "(", ")"))
+                + Arrays.stream(exceptionTypes).map(Class::getName).sorted()
+                .collect(Collectors.joining(",", " throws ", ""));
+    }
+
+    /**
+     * Writes compiled implementations of {@code tokens} to {@code jarFile}.
+     * Entries are compressed in {@code threads} threads by {@link JarAssembler}.
+     *
+     * @param tokens  classes or interfaces that are implemented
+     * @param classes {@link Map} from binary name to bytes of compiled classes
+     * @param jarFile target .jar file
+     * @param threads number of threads to compress entries
+     * @param options layout of .jar file
+     * @throws ImplerException if I/O error occurred
+     */
+    private void writeJar(List<Class<?>> tokens, Map<String, byte[]> classes, Path jarFile, int threads,
+                          JarOptions options) throws ImplerException {
+        Manifest manifest = MANIFEST;
+        String prefix = "";
+        if (options.release() > 0) {
+            manifest = new Manifest(MANIFEST);
+            manifest.getMainAttributes().put(Attributes.Name.MULTI_RELEASE, "true");
+            prefix = "META-INF/versions/" + options.release() + "/";
+        }
+        createDirectories(jarFile);
+        try {
+            JarAssembler assembler = new JarAssembler(manifest, options.compressed());
+            for (Map<String, byte[]> implementation : getClasses(tokens, classes).values()) {
+                for (Map.Entry<String, byte[]> entry : implementation.entrySet()) {
+                    assembler.add(prefix + entry.getKey().replace('.', '/') + ".class", entry.getValue());
+                }
+            }
+            assembler.write(jarFile, threads);
+        } catch (IOException | InvalidPathException e) {
+            throw new ImplerException("Cannot write to JAR file: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImplerException("Interrupted while writing JAR file");
+        }
+    }
+
+    /**
+     * Implements and compiles {@code tokens} and passes compiled classes to {@code writer}.
+     *
+     * @param tokens  classes or interfaces to implement
+     * @param threads number of threads to generate sources
+     * @param writer  writer of compiled classes
+     * @throws ImplerException if implementation fails
+     */
+    private void implementJars(List<Class<?>> tokens, int threads, JarWriter writer) throws ImplerException {
+        if (threads <= 0) {
+            throw new ImplerException("Number of threads should be positive: " + threads);
+        }
+        checkTokens(tokens);
+        writer.write(compile(tokens, threads));
+    }
+
+    /**
+     * Writer of compiled implementations to .jar files.
+     */
+    @FunctionalInterface
+    private interface JarWriter {
+        /**
+         * Writes compiled implementations.
+         *
+         * @param classes {@link Map} from binary name to bytes of compiled classes
+         * @throws ImplerException if I/O error occurred
+         */
+        void write(Map<String, byte[]> classes) throws ImplerException;
+    }
+
     /**
      * Creates {@code .jar} file implementing class or interface {@code token} entity.
      * Generated class full name should be same as full name of the type token with "Impl" suffix
      * added.
-     * During implementation creates temporary folder to store temporary .java and .class files.
-     * If program fails to delete temporary folder, it informs user about it.
+     * Source is generated and compiled in memory, no temporary files are created.
      *
      * @throws ImplerException if the given class cannot be generated for one of such reasons:
      *                         <ul>
@@ -435,39 +994,85 @@ public class Implementor implements JarImpler {
     public void implementJar(Class<?> token, Path jarFile) throws ImplerException {
         Objects.requireNonNull(token);
         Objects.requireNonNull(jarFile);
-        createDirectories(jarFile);
-        Path tmpDir = null;
-        try {
-            tmpDir = Files.createTempDirectory(jarFile.toAbsolutePath().getParent(), "temp");
-            implement(token, tmpDir);
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            if (compiler == null) {
-                throw new ImplerException("Unable to compile generated files");
-            }
-            String classpath = jarFile + File.pathSeparator + getClassPath(token);
-            String[] args = {getFilePath(tmpDir, token, ".java").toString(), "-encoding", "UTF-8", "-cp", classpath};
-            if (compiler.run(null, null, null, args) != 0) {
-                throw new ImplerException("Cannot compile files");
-            }
-            try (JarOutputStream writer = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(
-                    jarFile)), MANIFEST)) {
-                JarEntry jarAdd = new JarEntry((token.getPackageName() + "." + token.getSimpleName())
-                        .replace('.', '/') + "Impl.class");
-                writer.putNextEntry(jarAdd);
-                Files.copy(getFilePath(tmpDir, token, ".class"), writer);
-            } catch (IOException e) {
-                throw new ImplerException("Cannot write to JAR file: " + e);
-            }
-        } catch (IOException e) {
-            throw new ImplerException("Unable to create files: " + e);
-        } finally {
-            try {
-                clean(tmpDir);
-            } catch (IOException e) {
-                System.err.println("Cannot clear tmp directory" + e);
-            }
-        }
+        List<Class<?>> tokens = List.of(token);
+        implementJars(tokens, 1, classes -> writeJar(tokens, classes, jarFile, 1, JarOptions.DEFAULT));
+    }
+
+    /**
+     * Creates single {@code .jar} file with implementations of all {@code tokens}.
+     * Sources are generated by {@code threads} threads and compiled by single {@link JavaCompiler} invocation,
+     * so compiler startup is paid once for all classes.
+     *
+     * @param tokens  classes or interfaces to implement
+     * @param jarFile target .jar file
+     * @param threads number of threads to generate sources
+     * @throws ImplerException if some of implementations cannot be generated or compiled, implementations of
+     *                         tokens have same name, {@code threads} is not positive or I/O error occurred
+     */
+    public void implementJar(List<Class<?>> tokens, Path jarFile, int threads) throws ImplerException {
+        implementJar(tokens, jarFile, threads, JarOptions.DEFAULT);
+    }
 
+    /**
+     * Creates single {@code .jar} file with implementations of all {@code tokens} and given layout.
+     * Sources are generated and entries of jar are compressed by {@code threads} threads.
+     *
+     * @param tokens  classes or interfaces to implement
+     * @param jarFile target .jar file
+     * @param threads number of threads to generate sources and compress entries
+     * @param options layout of .jar file
+     * @throws ImplerException if some of implementations cannot be generated or compiled, implementations of
+     *                         tokens have same name, {@code threads} is not positive or I/O error occurred
+     */
+    public void implementJar(List<Class<?>> tokens, Path jarFile, int threads, JarOptions options)
+            throws ImplerException {
+        Objects.requireNonNull(tokens);
+        Objects.requireNonNull(jarFile);
+        Objects.requireNonNull(options);
+        List<Class<?>> copy = new ArrayList<>(tokens);
+        implementJars(copy, threads, classes -> writeJar(copy, classes, jarFile, threads, options));
+    }
+
+    /**
+     * Creates separate {@code .jar} file with implementation of every token of {@code jarFiles}.
+     * Sources are generated by {@code threads} threads and compiled by single {@link JavaCompiler} invocation.
+     *
+     * @param jarFiles target .jar file for every class or interface to implement
+     * @param threads  number of threads to generate sources
+     * @throws ImplerException if some of implementations cannot be generated or compiled, implementations of
+     *                         tokens have same name, {@code threads} is not positive or I/O error occurred
+     */
+    public void implementJars(Map<Class<?>, Path> jarFiles, int threads) throws ImplerException {
+        implementJars(jarFiles, threads, JarOptions.DEFAULT);
+    }
+
+    /**
+     * Creates separate {@code .jar} file with implementation of every token of {@code jarFiles} and given layout.
+     * Sources are generated by {@code threads} threads and compiled by single {@link JavaCompiler} invocation.
+     *
+     * @param jarFiles target .jar file for every class or interface to implement
+     * @param threads  number of threads to generate sources
+     * @param options  layout of .jar files
+     * @throws ImplerException if some of implementations cannot be generated or compiled, implementations of
+     *                         tokens have same name, {@code threads} is not positive or I/O error occurred
+     */
+    public void implementJars(Map<Class<?>, Path> jarFiles, int threads, JarOptions options) throws ImplerException {
+        Objects.requireNonNull(jarFiles);
+        Objects.requireNonNull(options);
+        if (jarFiles.isEmpty()) {
+            return;
+        }
+        Map<Class<?>, Path> copy = new LinkedHashMap<>(jarFiles);
+        if (copy.containsValue(null)) {
+            throw new ImplerException("Jar file shouldn't be null");
+        }
+        List<Class<?>> tokens = new ArrayList<>(copy.keySet());
+        implementJars(tokens, threads, classes -> {
+            Map<Class<?>, Map<String, byte[]>> grouped = getClasses(tokens, classes);
+            for (Class<?> token : tokens) {
+                writeJar(List.of(token), grouped.get(token), copy.get(token), 1, options);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,131 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link JavaFileManager} that keeps compiled classes in memory instead of writing them to class output directory.
+ * Reading of sources and dependencies is delegated to standard file manager.
+ */
+class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    /**
+     * Compiled classes by binary names in order of compilation.
+     */
+    private final Map<String, ClassFile> classes = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    /**
+     * Source file with content held in memory.
+     */
+    static final class SourceFile extends SimpleJavaFileObject {
+        /**
+         * Source code.
+         */
+        private final CharSequence source;
+
+        /**
+         * Creates source file of class.
+         *
+         * @param className binary name of class declared in file
+         * @param source    source code
+         */
+        SourceFile(String className, CharSequence source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        /**
+         * Returns source code of file.
+         *
+         * @param ignoreEncodingErrors ignored, source is already decoded
+         * @return source code
+         */
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * Class file written to byte array.
+     */
+    private static final class ClassFile extends SimpleJavaFileObject {
+        /**
+         * Bytes of class file.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        /**
+         * Creates class file.
+         *
+         * @param className binary name of class
+         */
+        ClassFile(String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        /**
+         * Returns stream writing to memory.
+         *
+         * @return {@link OutputStream} of class file
+         */
+        @Override
+        public OutputStream openOutputStream() {
+            bytes.reset();
+            return bytes;
+        }
+    }
+
+    /**
+     * Creates file manager, that delegates reading to {@code fileManager}.
+     *
+     * @param fileManager standard file manager of compiler
+     */
+    InMemoryFileManager(StandardJavaFileManager fileManager) {
+        super(fileManager);
+    }
+
+    /**
+     * Returns in-memory file for compiled class, other outputs are delegated.
+     *
+     * @param location  location of output
+     * @param className binary name of class
+     * @param kind      kind of file
+     * @param sibling   file hint for placement
+     * @return {@link JavaFileObject} for output
+     * @throws IOException if delegated file cannot be created
+     */
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                               FileObject sibling) throws IOException {
+        if (kind != JavaFileObject.Kind.CLASS) {
+            return super.getJavaFileForOutput(location, className, kind, sibling);
+        }
+        ClassFile file = new ClassFile(className);
+        classes.put(className, file);
+        return file;
+    }
+
+    /**
+     * Returns bytes of classes compiled so far.
+     *
+     * @return {@link Map} from binary name of class to class file bytes, in order of compilation
+     */
+    Map<String, byte[]> classes() {
+        synchronized (classes) {
+            Map<String, byte[]> result = new LinkedHashMap<>();
+            classes.forEach((name, file) -> result.put(name, file.bytes.toByteArray()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writer of .jar files, that compresses entries in parallel.
+ * {@link java.util.jar.JarOutputStream} deflates entries one by one in calling thread, so entries are deflated here
+ * by worker threads and then appended to file in order of addition, together with ZIP headers written by hand.
+ * Entries may be stored uncompressed, that makes both writing and class loading faster for price of size.
+ * ZIP64 is not supported, so jar is limited to 65535 entries and 4 GB.
+ */
+class JarAssembler {
+    /**
+     * Signature of local file header, that precedes data of every entry.
+     */
+    private static final int LOCAL_HEADER = 0x04034b50;
+    /**
+     * Signature of central directory file header, that describes entry in directory at the end of file.
+     */
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    /**
+     * Signature of end of central directory record, that locates directory and counts entries.
+     */
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    /**
+     * Version 2.0 of ZIP, that supports deflate.
+     */
+    private static final int VERSION = 20;
+    /**
+     * General purpose flag of names encoded in UTF-8.
+     */
+    private static final int UTF8_NAMES = 0x0800;
+    /**
+     * Compression method of entries stored uncompressed.
+     */
+    private static final int STORED = 0;
+    /**
+     * Compression method of entries compressed by deflate.
+     */
+    private static final int DEFLATED = 8;
+    /**
+     * Maximal number of entries without ZIP64, that is counted by two bytes.
+     */
+    private static final int MAX_ENTRIES = 0xFFFF;
+    /**
+     * Maximal offset of entry or central directory without ZIP64, that is written by four bytes.
+     */
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+
+    /**
+     * Entry added to jar.
+     *
+     * @param name  name of entry
+     * @param bytes uncompressed content
+     */
+    private record Source(String name, byte[] bytes) {
+    }
+
+    /**
+     * Entry ready to be written.
+     *
+     * @param name   name of entry in UTF-8
+     * @param method compression method
+     * @param crc    CRC-32 of uncompressed content
+     * @param size   size of uncompressed content
+     * @param data   content compressed by {@code method}
+     */
+    private record Entry(byte[] name, int method, int crc, int size, byte[] data) {
+    }
+
+    /**
+     * Whether entries are deflated.
+     */
+    private final boolean compressed;
+    /**
+     * Entries in order of addition.
+     */
+    private final List<Source> sources = new ArrayList<>();
+    /**
+     * Modification time of all entries in MS-DOS format.
+     */
+    private final int time;
+
+    /**
+     * Creates writer of jar with {@code manifest}.
+     *
+     * @param manifest   manifest of jar, written first
+     * @param compressed {@code true} to deflate entries, {@code false} to store them
+     * @throws IOException if manifest cannot be written
+     */
+    JarAssembler(Manifest manifest, boolean compressed) throws IOException {
+        this.compressed = compressed;
+        LocalDateTime now = LocalDateTime.now();
+        time = (now.getYear() - 1980) << 25 | now.getMonthValue() << 21 | now.getDayOfMonth() << 16
+                | now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() >> 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        manifest.write(bytes);
+        add(JarFile.MANIFEST_NAME, bytes.toByteArray());
+    }
+
+    /**
+     * Adds entry to jar.
+     *
+     * @param name  name of entry
+     * @param bytes content of entry
+     */
+    void add(String name, byte[] bytes) {
+        sources.add(new Source(name, bytes));
+    }
+
+    /**
+     * Compresses entry, if it is compressed and deflate makes it smaller.
+     *
+     * @param source entry to compress
+     * @return compressed entry
+     */
+    private Entry compress(Source source) {
+        byte[] bytes = source.bytes();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        byte[] data = bytes;
+        int method = STORED;
+        if (compressed) {
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            try {
+                deflater.setInput(bytes);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 64);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                if (out.size() < bytes.length) {
+                    data = out.toByteArray();
+                    method = DEFLATED;
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        return new Entry(source.name().getBytes(StandardCharsets.UTF_8), method, (int) crc.getValue(),
+                bytes.length, data);
+    }
+
+    /**
+     * Compresses entries in {@code threads} threads and writes jar to {@code file}.
+     *
+     * @param file    target .jar file
+     * @param threads number of threads to compress entries
+     * @throws IOException          if I/O error occurred or jar is too large
+     * @throws InterruptedException if interrupted while compressing
+     */
+    void write(Path file, int threads) throws IOException, InterruptedException {
+        if (sources.size() > MAX_ENTRIES) {
+            throw new IOException("Too many entries: " + sources.size());
+        }
+        List<Entry> entries = new IterativeParallelism().map(threads, sources, this::compress);
+        ByteArrayOutputStream directory = new ByteArrayOutputStream();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            long offset = 0;
+            for (Entry entry : entries) {
+                if (offset > MAX_OFFSET) {
+                    throw new IOException("Jar file is too large");
+                }
+                writeInt(directory, CENTRAL_HEADER);
+                writeShort(directory, VERSION);
+                writeHeader(directory, entry);
+                writeShort(directory, 0);
+                writeShort(directory, 0);
+                writeShort(directory, 0);
+                writeInt(directory, 0);
+                writeInt(directory, (int) offset);
+                directory.write(entry.name());
+
+                writeInt(out, LOCAL_HEADER);
+                writeHeader(out, entry);
+                out.write(entry.name());
+                out.write(entry.data());
+                offset += 30 + entry.name().length + entry.data().length;
+            }
+            if (offset > MAX_OFFSET) {
+                throw new IOException("Jar file is too large");
+            }
+            directory.writeTo(out);
+            writeInt(out, END_OF_CENTRAL_DIRECTORY);
+            writeShort(out, 0);
+            writeShort(out, 0);
+            writeShort(out, entries.size());
+            writeShort(out, entries.size());
+            writeInt(out, directory.size());
+            writeInt(out, (int) offset);
+            writeShort(out, 0);
+        }
+    }
+
+    /**
+     * Writes fields shared by local and central headers: from version needed to extract to extra field length.
+     *
+     * @param out   target stream
+     * @param entry written entry
+     * @throws IOException if I/O error occurred
+     */
+    private void writeHeader(OutputStream out, Entry entry) throws IOException {
+        writeShort(out, VERSION);
+        writeShort(out, UTF8_NAMES);
+        writeShort(out, entry.method());
+        writeInt(out, time);
+        writeInt(out, entry.crc());
+        writeInt(out, entry.data().length);
+        writeInt(out, entry.size());
+        writeShort(out, entry.name().length);
+        writeShort(out, 0);
+    }
+
+    /**
+     * Writes two low bytes of {@code value} in little-endian order, as all ZIP fields.
+     *
+     * @param out   target stream
+     * @param value written value
+     * @throws IOException if I/O error occurred
+     */
+    private static void writeShort(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >> 8);
+    }
+
+    /**
+     * Writes four bytes of {@code value} in little-endian order.
+     *
+     * @param out   target stream
+     * @param value written value
+     * @throws IOException if I/O error occurred
+     */
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        writeShort(out, value);
+        writeShort(out, value >> 16);
+    }
+}
@@ -2,12 +2,45 @@ package info.kgeorgiy.ja.zakharov.implementor;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Wrapper for {@link Method} that compares and computes hashcode two methods using only name and parameter types.
+ * Parameter types and hashcode are computed once on creation.
  */
-public record MethodWrapper(Method method) {
+public final class MethodWrapper {
+    /**
+     * Wrapped method.
+     */
+    private final Method method;
+    /**
+     * Parameter types of wrapped method, never exposed.
+     */
+    private final Class<?>[] parameterTypes;
+    /**
+     * Hashcode of name and parameter types.
+     */
+    private final int hash;
+
+    /**
+     * Creates wrapper of {@code method}.
+     *
+     * @param method wrapped method
+     */
+    public MethodWrapper(Method method) {
+        this.method = method;
+        this.parameterTypes = method.getParameterTypes();
+        this.hash = 31 * (31 + method.getName().hashCode()) + Arrays.hashCode(parameterTypes);
+    }
+
+    /**
+     * Returns wrapped method.
+     *
+     * @return wrapped method
+     */
+    public Method method() {
+        return method;
+    }
+
     /**
      * Compares with different MethodWrapper by arguments and return type.
      *
@@ -20,19 +53,30 @@ public record MethodWrapper(Method method) {
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof MethodWrapper method1) {
-            return method1.method().getName().equals(method.getName())
-                    && Arrays.equals(method1.method().getParameterTypes(), method.getParameterTypes());
+            return hash == method1.hash
+                    && method1.method.getName().equals(method.getName())
+                    && Arrays.equals(method1.parameterTypes, parameterTypes);
         }
         return false;
     }
 
     /**
-     * Get hashcode of this methodWrapper using parameterTypes and name.
+     * Get hashcode of this methodWrapper using parameterTypes and name, computed on creation.
      *
      * @return hashCode representation
      */
     @Override
     public int hashCode() {
-        return Objects.hash(method.getName().hashCode(), Arrays.hashCode(method.getParameterTypes()));
+        return hash;
+    }
+
+    /**
+     * Returns string representation of wrapped method.
+     *
+     * @return string with wrapped method
+     */
+    @Override
+    public String toString() {
+        return "MethodWrapper[method=" + method + "]";
     }
 }
@@ -0,0 +1,110 @@
+package info.kgeorgiy.ja.zakharov.implementor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writer of generated source code. Code is appended to reusable buffer, that is passed to underlying
+ * {@link Writer} in large chunks. Canonical names of types and line separators with indentation are computed once.
+ */
+class SourceWriter {
+    /**
+     * Size of buffer, after which it is written to underlying writer.
+     */
+    private static final int FLUSH_SIZE = 1 << 13;
+    /**
+     * Line separators followed by {@code i} {@link ImplementorUtilities#TAB}s.
+     */
+    private static final String[] NEW_LINES = {
+            ImplementorUtilities.newLine(0), ImplementorUtilities.newLine(1), ImplementorUtilities.newLine(2)
+    };
+
+    /**
+     * Underlying writer.
+     */
+    private final Writer out;
+    /**
+     * Code that is not written yet.
+     */
+    private final StringBuilder buffer = new StringBuilder(2 * FLUSH_SIZE);
+    /**
+     * Canonical names of types.
+     */
+    private final Map<Class<?>, String> names = new HashMap<>();
+
+    /**
+     * Creates writer to {@code out}.
+     *
+     * @param out underlying writer
+     */
+    SourceWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Appends string.
+     *
+     * @param string string to append
+     * @return this
+     */
+    SourceWriter append(String string) {
+        buffer.append(string);
+        return this;
+    }
+
+    /**
+     * Appends character.
+     *
+     * @param c character to append
+     * @return this
+     */
+    SourceWriter append(char c) {
+        buffer.append(c);
+        return this;
+    }
+
+    /**
+     * Appends canonical name of type.
+     *
+     * @param type type to append
+     * @return this
+     */
+    SourceWriter appendType(Class<?> type) {
+        buffer.append(names.computeIfAbsent(type, Class::getCanonicalName));
+        return this;
+    }
+
+    /**
+     * Appends line separator followed by {@code indent} {@link ImplementorUtilities#TAB}s.
+     *
+     * @param indent number of tabs
+     * @return this
+     */
+    SourceWriter newLine(int indent) {
+        buffer.append(indent < NEW_LINES.length ? NEW_LINES[indent] : ImplementorUtilities.newLine(indent));
+        return this;
+    }
+
+    /**
+     * Writes buffer to underlying writer, if it is large enough.
+     *
+     * @throws IOException if underlying writer fails
+     */
+    void flushIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes buffer to underlying writer.
+     *
+     * @throws IOException if underlying writer fails
+     */
+    void flush() throws IOException {
+        out.append(buffer);
+        buffer.setLength(0);
+    }
+}
@@ -0,0 +1,127 @@
+package info.kgeorgiy.ja.zakharov.implementor.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.implementor.Implementor;
+import info.kgeorgiy.ja.zakharov.implementor.MethodWrapper;
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Command-line benchmark of method resolution of {@link Implementor} on deep generated hierarchy.
+ * Every level of hierarchy is abstract class, that extends previous level and implements interface, that extends
+ * interface of previous level. Class files of all levels are generated by {@link Implementor.Backend#BYTECODE},
+ * so time is spent mostly on reflection. First pass resolves and caches hierarchy, next passes reuse it.
+ * <p>
+ * Every pass is compared with previous resolution, that walked hierarchy twice, for abstract and for final
+ * methods, and cached nothing: time before is time of that resolution followed by generation, that finds
+ * resolution cached after first pass, time after is time of generation alone.
+ */
+public class HierarchyBenchmark {
+    private static final String USAGE = "Usage: HierarchyBenchmark [depth [methods [passes]]], e.g. 50 20 5";
+
+    private static volatile Object sink;
+
+    /**
+     * Previous resolution: methods of class satisfying predicate, with narrow return type for same signatures.
+     */
+    private static Map<MethodWrapper, Method> twoPassMap(Class<?> token, Predicate<? super Method> predicate,
+                                                         Function<Class<?>, Method[]> getter) {
+        return Arrays.stream(getter.apply(token))
+                .filter(predicate)
+                .collect(Collectors.toMap(MethodWrapper::new, Function.identity(), HierarchyBenchmark::narrow));
+    }
+
+    private static Method narrow(Method method1, Method method2) {
+        return method2.getReturnType().isAssignableFrom(method1.getReturnType()) ? method1 : method2;
+    }
+
+    private static Set<MethodWrapper> twoPassPredicate(Class<?> token, Predicate<? super Method> predicate) {
+        Map<MethodWrapper, Method> storage = twoPassMap(token, predicate, Class::getMethods);
+        while (token != null) {
+            twoPassMap(token, predicate, Class::getDeclaredMethods).forEach((wrapper, method) ->
+                    storage.merge(wrapper, method, HierarchyBenchmark::narrow));
+            token = token.getSuperclass();
+        }
+        return storage.values().stream().map(MethodWrapper::new).collect(Collectors.toSet());
+    }
+
+    /**
+     * Previous resolution of methods to override in implementation of {@code token}.
+     */
+    private static List<Method> twoPass(Class<?> token) {
+        Set<MethodWrapper> storage = twoPassPredicate(token, method -> Modifier.isAbstract(method.getModifiers()));
+        storage.removeAll(twoPassPredicate(token, method -> Modifier.isFinal(method.getModifiers())));
+        return storage.stream().map(MethodWrapper::method).toList();
+    }
+
+    private static Map<String, String> sources(int depth, int methods) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int level = 0; level < depth; level++) {
+            StringBuilder face = new StringBuilder("public interface Face" + level
+                    + (level > 0 ? " extends Face" + (level - 1) : "") + " {\n");
+            StringBuilder clazz = new StringBuilder("public abstract class Level" + level
+                    + (level > 0 ? " extends Level" + (level - 1) : "") + " implements Face" + level + " {\n");
+            for (int method = 0; method < methods; method++) {
+                face.append("    Object face").append(level).append("_").append(method).append("(int value);\n");
+                clazz.append("    public abstract Number level").append(level).append("_").append(method)
+                        .append("(long value, String name);\n");
+                if (level > 0) {
+                    clazz.append("    public String face").append(level - 1).append("_").append(method)
+                            .append("(int value) { return null; }\n");
+                }
+            }
+            clazz.append("    public final void final").append(level).append("() {}\n");
+            sources.put("Face" + level, face.append("}\n").toString());
+            sources.put("Level" + level, clazz.append("}\n").toString());
+        }
+        return sources;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [depth [methods per level [passes]]];
+     *             defaults are {@code 50 20 5}
+     */
+    public static void main(String[] args) throws IOException, ImplerException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 3, USAGE);
+        int depth = arguments.positive(0, 50);
+        int methods = arguments.nonNegative(1, 20);
+        int passes = arguments.positive(2, 5);
+        if (!arguments.validate()) {
+            return;
+        }
+        Path root = Files.createTempDirectory("hierarchy-benchmark");
+        try {
+            List<Class<?>> tokens = ImplementorBenchmark.compile(sources(depth, methods), root);
+            Implementor implementor = new Implementor(Implementor.Backend.BYTECODE);
+            System.out.printf("%d levels, %d methods per level, %d classes%n", depth, methods, tokens.size());
+            for (int pass = 0; pass < passes; pass++) {
+                long start = System.nanoTime();
+                for (Class<?> token : tokens) {
+                    sink = twoPass(token);
+                    sink = implementor.generateClass(token);
+                }
+                long before = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (Class<?> token : tokens) {
+                    sink = implementor.generateClass(token);
+                }
+                long after = System.nanoTime() - start;
+                System.out.printf("  pass %-3d before %10.1f ms   after %10.1f ms %12.1f classes/s%n",
+                        pass, before / 1e6, after / 1e6, tokens.size() * 1e9 / after);
+            }
+        } finally {
+            ImplementorBenchmark.delete(root);
+        }
+    }
+}
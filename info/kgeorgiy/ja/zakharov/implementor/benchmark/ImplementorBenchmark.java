@@ -0,0 +1,167 @@
+package info.kgeorgiy.ja.zakharov.implementor.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.implementor.ImplementationCache;
+import info.kgeorgiy.ja.zakharov.implementor.Implementor;
+import info.kgeorgiy.ja.zakharov.implementor.ImplementorUtilities;
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Command-line benchmark of {@link Implementor} on generated interfaces.
+ * Interfaces of given size are generated and compiled once, then implemented by every mode,
+ * time and throughput in classes per second are reported.
+ */
+public class ImplementorBenchmark {
+    private static final String USAGE = "Usage: ImplementorBenchmark [classes [methods [threads]]], e.g. 200 10 4";
+    private static final String PACKAGE = "benchmark.generated";
+    private static final String[] TYPES = {"int", "long", "boolean", "String", "java.util.Date", "Object[]"};
+
+    /**
+     * Way to implement all classes into directory.
+     */
+    @FunctionalInterface
+    private interface Mode {
+        void run(List<Class<?>> tokens, Path directory) throws ImplerException;
+    }
+
+    private static String source(int index, int methods) {
+        StringBuilder source = new StringBuilder("public interface Api" + index + " {\n");
+        for (int method = 0; method < methods; method++) {
+            String type = TYPES[(index + method) % TYPES.length];
+            source.append("    ").append(type).append(" method").append(method)
+                    .append("(").append(type).append(" value, int index) throws java.io.IOException;\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Compiles classes of {@link #PACKAGE} with given simple names and sources into {@code directory} and loads them.
+     */
+    static List<Class<?>> compile(Map<String, String> sources, Path directory) throws IOException {
+        Path packageDirectory = Files.createDirectories(directory.resolve(PACKAGE.replace('.', '/')));
+        List<String> args = new ArrayList<>(List.of("-d", directory.toString()));
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            Path file = packageDirectory.resolve(source.getKey() + ".java");
+            Files.writeString(file, "package " + PACKAGE + ";\n\n" + source.getValue());
+            args.add(file.toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null || compiler.run(null, null, null, args.toArray(String[]::new)) != 0) {
+            throw new IOException("Cannot compile generated classes");
+        }
+        ClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()});
+        List<Class<?>> tokens = new ArrayList<>();
+        for (String name : sources.keySet()) {
+            try {
+                tokens.add(loader.loadClass(PACKAGE + "." + name));
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Cannot load generated class", e);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Generates and compiles {@code count} interfaces with {@code methods} methods into {@code directory}.
+     */
+    private static List<Class<?>> generate(int count, int methods, Path directory) throws IOException {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            sources.put("Api" + i, source(i, methods));
+        }
+        return compile(sources, directory);
+    }
+
+    /**
+     * Deletes {@code directory} recursively.
+     */
+    static void delete(Path directory) {
+        try {
+            Files.walkFileTree(directory, ImplementorUtilities.DELETE_VISITOR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Mode> modes(int threads, ImplementationCache cache) {
+        Map<String, Mode> modes = new LinkedHashMap<>();
+        Implementor sources = new Implementor();
+        modes.put("sources only", (tokens, directory) -> {
+            for (Class<?> token : tokens) {
+                sources.implement(token, directory);
+            }
+        });
+        for (Implementor.Backend backend : Implementor.Backend.values()) {
+            Implementor implementor = new Implementor(backend);
+            String name = backend.name().toLowerCase(Locale.ROOT);
+            modes.put(name + ", per-class", (tokens, directory) -> {
+                for (Class<?> token : tokens) {
+                    implementor.implementJar(token, directory.resolve(token.getSimpleName() + ".jar"));
+                }
+            });
+            modes.put(name + ", batch, jar per class", (tokens, directory) -> {
+                Map<Class<?>, Path> jars = new LinkedHashMap<>();
+                tokens.forEach(token -> jars.put(token, directory.resolve(token.getSimpleName() + ".jar")));
+                implementor.implementJars(jars, threads);
+            });
+            modes.put(name + ", batch, single jar", (tokens, directory) ->
+                    implementor.implementJar(tokens, directory.resolve("all.jar"), threads));
+        }
+        Implementor cached = new Implementor(Implementor.Backend.JAVAC, cache);
+        for (String name : List.of("javac, cache miss, single jar", "javac, cache hit, single jar")) {
+            modes.put(name, (tokens, directory) -> cached.implementJar(tokens, directory.resolve("all.jar"), threads));
+        }
+        Implementor bytecode = new Implementor(Implementor.Backend.BYTECODE);
+        modes.put("bytecode, define class", (tokens, directory) -> {
+            for (Class<?> token : tokens) {
+                bytecode.defineClass(token);
+            }
+        });
+        return modes;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [classes [methods per class [threads]]];
+     *             defaults are {@code 200 10} and number of available processors
+     */
+    public static void main(String[] args) throws IOException, ImplerException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 3, USAGE);
+        int count = arguments.positive(0, 200);
+        int methods = arguments.nonNegative(1, 10);
+        int threads = arguments.positive(2, Runtime.getRuntime().availableProcessors());
+        if (!arguments.validate()) {
+            return;
+        }
+        Path root = Files.createTempDirectory("implementor-benchmark");
+        try {
+            List<Class<?>> tokens = generate(count, methods, root.resolve("classes"));
+            System.out.printf("%d classes, %d methods, %d threads%n", count, methods, threads);
+            ImplementationCache cache = new ImplementationCache(root.resolve("cache"), count);
+            int run = 0;
+            for (Map.Entry<String, Mode> mode : modes(threads, cache).entrySet()) {
+                Path directory = Files.createDirectories(root.resolve("run" + run++));
+                long start = System.nanoTime();
+                mode.getValue().run(tokens, directory);
+                long nanos = System.nanoTime() - start;
+                System.out.printf("  %-30s %10.1f ms %12.1f classes/s%n",
+                        mode.getKey(), nanos / 1e6, count * 1e9 / nanos);
+                delete(directory);
+            }
+            System.out.println("  " + cache.stats());
+        } finally {
+            delete(root);
+        }
+    }
+}
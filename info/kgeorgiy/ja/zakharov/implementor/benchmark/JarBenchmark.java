@@ -0,0 +1,128 @@
+package info.kgeorgiy.ja.zakharov.implementor.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.implementor.Implementor;
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Command-line benchmark of assembly of single .jar file with thousands of implementations.
+ * Implementations are generated by {@link Implementor.Backend#BYTECODE}, so time is spent mostly on jar assembly.
+ * Time of generation alone and of writing generated classes by {@link JarOutputStream} are reported for reference.
+ * Every written jar is checked: implementations of all classes are loaded from it and instantiated.
+ */
+public class JarBenchmark {
+    private static final String USAGE = "Usage: JarBenchmark [classes [threads]], e.g. 5000 4";
+
+    private static volatile Object sink;
+
+    private static Map<String, String> sources(int count) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            StringBuilder source = new StringBuilder("public interface Jar" + i + " {\n");
+            for (int method = 0; method < 10; method++) {
+                source.append("    String method").append(method).append("(int value, java.util.List<String> list);\n");
+            }
+            sources.put("Jar" + i, source.append("}\n").toString());
+        }
+        return sources;
+    }
+
+    @FunctionalInterface
+    private interface Mode {
+        void run(List<Class<?>> tokens, Path jarFile) throws IOException, ImplerException;
+    }
+
+    private static Map<String, Mode> modes(int threads) {
+        Implementor implementor = new Implementor(Implementor.Backend.BYTECODE);
+        Map<String, Mode> modes = new LinkedHashMap<>();
+        modes.put("generate only", (tokens, jarFile) -> {
+            for (Class<?> token : tokens) {
+                sink = implementor.generateClass(token);
+            }
+        });
+        modes.put("JarOutputStream, deflated", (tokens, jarFile) -> {
+            try (JarOutputStream out = new JarOutputStream(new BufferedOutputStream(Files.newOutputStream(jarFile)),
+                    new Manifest())) {
+                for (Class<?> token : tokens) {
+                    out.putNextEntry(new JarEntry(token.getName().replace('.', '/') + "Impl.class"));
+                    out.write(implementor.generateClass(token));
+                }
+            }
+        });
+        Map<String, Implementor.JarOptions> options = new LinkedHashMap<>();
+        options.put("deflated, 1 thread", Implementor.JarOptions.DEFAULT);
+        options.put("deflated, " + threads + " threads", Implementor.JarOptions.DEFAULT);
+        options.put("stored, " + threads + " threads", new Implementor.JarOptions(false, 0));
+        options.put("multi-release", new Implementor.JarOptions(true, 17));
+        options.forEach((name, option) -> {
+            int modeThreads = name.endsWith("1 thread") ? 1 : threads;
+            modes.put(name, (tokens, jarFile) -> implementor.implementJar(tokens, jarFile, modeThreads, option));
+        });
+        return modes;
+    }
+
+    /**
+     * Loads implementations of all {@code tokens} from {@code jarFile} and creates their instances.
+     *
+     * @throws IllegalStateException if some implementation cannot be loaded or instantiated
+     */
+    private static void check(List<Class<?>> tokens, Path jarFile) throws IOException {
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jarFile.toUri().toURL()},
+                tokens.get(0).getClassLoader())) {
+            for (Class<?> token : tokens) {
+                Class<?> implementation = loader.loadClass(token.getName() + "Impl");
+                if (implementation.getClassLoader() != loader || !token.isAssignableFrom(implementation)) {
+                    throw new IllegalStateException("Invalid implementation of " + token.getName());
+                }
+                sink = implementation.getConstructor().newInstance();
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot load implementation from " + jarFile + ": " + e, e);
+        }
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [classes [threads]];
+     *             defaults are {@code 5000} and number of available processors
+     */
+    public static void main(String[] args) throws IOException, ImplerException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 2, USAGE);
+        int count = arguments.positive(0, 5000);
+        int threads = arguments.positive(1, Runtime.getRuntime().availableProcessors());
+        if (!arguments.validate()) {
+            return;
+        }
+        Path root = Files.createTempDirectory("jar-benchmark");
+        try {
+            List<Class<?>> tokens = ImplementorBenchmark.compile(sources(count), root.resolve("classes"));
+            System.out.printf("%d classes, %d threads%n", count, threads);
+            int run = 0;
+            for (Map.Entry<String, Mode> mode : modes(threads).entrySet()) {
+                Path jarFile = root.resolve("run" + run++ + ".jar");
+                long start = System.nanoTime();
+                mode.getValue().run(tokens, jarFile);
+                long nanos = System.nanoTime() - start;
+                if (Files.exists(jarFile)) {
+                    check(tokens, jarFile);
+                }
+                System.out.printf("  %-30s %10.1f ms %12.1f classes/s %10d bytes%n", mode.getKey(), nanos / 1e6,
+                        count * 1e9 / nanos, Files.exists(jarFile) ? Files.size(jarFile) : 0);
+            }
+        } finally {
+            ImplementorBenchmark.delete(root);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link AdvancedQuery} that caches results of queries on students of {@link StudentDataset}.
+ * Cache is bounded and evicts least recently used results, it is cleared when version of dataset changes.
+ * Cached results are immutable and may be shared between threads. Queries on other collections are passed
+ * to delegate.
+ */
+public class CachingStudentDB implements AdvancedQuery {
+    private static final Object NULL = new Object();
+
+    private final AdvancedQuery delegate;
+    private final StudentDataset dataset;
+    private final Map<Key, Object> cache;
+    private long version;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Statistics of cache.
+     *
+     * @param hits      number of queries answered from cache
+     * @param misses    number of queries on dataset passed to delegate
+     * @param evictions number of results evicted because of size limit
+     * @param size      number of cached results
+     */
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record Key(String query, Object argument) {
+    }
+
+    /**
+     * Creates cache of at most {@code capacity} results of {@code delegate} queries on {@code dataset}.
+     */
+    public CachingStudentDB(AdvancedQuery delegate, StudentDataset dataset, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity should be positive: " + capacity);
+        }
+        this.delegate = delegate;
+        this.dataset = dataset;
+        this.version = dataset.version();
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public <D extends AdvancedQuery & StudentDataset> CachingStudentDB(D database, int capacity) {
+        this(database, database, capacity);
+    }
+
+    public Stats stats() {
+        synchronized (cache) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), cache.size());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <R> R cached(Collection<Student> students, String query, Object argument,
+                         Supplier<R> supplier, UnaryOperator<R> freeze) {
+        // Version is read first, so result on newer students is never cached with older version
+        long current = dataset.version();
+        if (students != dataset.students()) {
+            return supplier.get();
+        }
+        Key key = new Key(query, argument);
+        synchronized (cache) {
+            if (version != current) {
+                cache.clear();
+                version = current;
+            }
+            Object value = cache.get(key);
+            if (value != null) {
+                hits.increment();
+                return value == NULL ? null : (R) value;
+            }
+        }
+        misses.increment();
+        R result = supplier.get();
+        if (result != null) {
+            result = freeze.apply(result);
+        }
+        synchronized (cache) {
+            if (version == current && dataset.version() == current) {
+                cache.put(key, result == null ? NULL : result);
+            }
+        }
+        return result;
+    }
+
+    private <R> R cached(Collection<Student> students, String query, Object argument, Supplier<R> supplier) {
+        return cached(students, query, argument, supplier, UnaryOperator.identity());
+    }
+
+    private <T> List<T> cachedList(Collection<Student> students, String query, Object argument,
+                                   Supplier<List<T>> supplier) {
+        return cached(students, query, argument, supplier, List::copyOf);
+    }
+
+    private List<Group> cachedGroups(Collection<Student> students, String query, Supplier<List<Group>> supplier) {
+        return cached(students, query, null, supplier, groups -> groups.stream()
+                .map(group -> new Group(group.getName(), List.copyOf(group.getStudents())))
+                .toList());
+    }
+
+    private static List<Integer> key(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        return cachedList(students, "getFirstNames", null, () -> delegate.getFirstNames(students));
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        return cachedList(students, "getLastNames", null, () -> delegate.getLastNames(students));
+    }
+
+    @Override
+    public List<GroupName> getGroups(List<Student> students) {
+        return cachedList(students, "getGroups", null, () -> delegate.getGroups(students));
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        return cachedList(students, "getFullNames", null, () -> delegate.getFullNames(students));
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        return cached(students, "getDistinctFirstNames", null, () -> delegate.getDistinctFirstNames(students),
+                names -> Collections.unmodifiableSortedSet(new TreeSet<>(names)));
+    }
+
+    @Override
+    public String getMaxStudentFirstName(List<Student> students) {
+        return cached(students, "getMaxStudentFirstName", null, () -> delegate.getMaxStudentFirstName(students));
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        return cachedList(students, "sortStudentsById", null, () -> delegate.sortStudentsById(students));
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        return cachedList(students, "sortStudentsByName", null, () -> delegate.sortStudentsByName(students));
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return cachedList(students, "findStudentsByFirstName", name,
+                () -> delegate.findStudentsByFirstName(students, name));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return cachedList(students, "findStudentsByLastName", name,
+                () -> delegate.findStudentsByLastName(students, name));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        return cachedList(students, "findStudentsByGroup", group, () -> delegate.findStudentsByGroup(students, group));
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        return cached(students, "findStudentNamesByGroup", group,
+                () -> delegate.findStudentNamesByGroup(students, group), Map::copyOf);
+    }
+
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        return cachedGroups(students, "getGroupsByName", () -> delegate.getGroupsByName(students));
+    }
+
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return cachedGroups(students, "getGroupsById", () -> delegate.getGroupsById(students));
+    }
+
+    @Override
+    public GroupName getLargestGroup(Collection<Student> students) {
+        return cached(students, "getLargestGroup", null, () -> delegate.getLargestGroup(students));
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(Collection<Student> students) {
+        return cached(students, "getLargestGroupFirstName", null, () -> delegate.getLargestGroupFirstName(students));
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        return cached(students, "getMostPopularName", null, () -> delegate.getMostPopularName(students));
+    }
+
+    @Override
+    public List<String> getFirstNames(Collection<Student> students, int[] ids) {
+        return cachedList(students, "getFirstNamesOfIds", key(ids), () -> delegate.getFirstNames(students, ids));
+    }
+
+    @Override
+    public List<String> getLastNames(Collection<Student> students, int[] ids) {
+        return cachedList(students, "getLastNamesOfIds", key(ids), () -> delegate.getLastNames(students, ids));
+    }
+
+    @Override
+    public List<GroupName> getGroups(Collection<Student> students, int[] ids) {
+        return cachedList(students, "getGroupsOfIds", key(ids), () -> delegate.getGroups(students, ids));
+    }
+
+    @Override
+    public List<String> getFullNames(Collection<Student> students, int[] ids) {
+        return cachedList(students, "getFullNamesOfIds", key(ids), () -> delegate.getFullNames(students, ids));
+    }
+}
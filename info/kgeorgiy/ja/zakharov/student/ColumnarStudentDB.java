@@ -0,0 +1,722 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link StudentDB} that stores its own students by columns: ids in {@code int[]}, first and last names as codes in
+ * shared {@link StringDictionary} and groups as {@code byte} ordinals of {@link GroupName}.
+ * Queries on {@link #students()} compare codes and create {@link Student} objects only for results,
+ * other collections are queried like in {@link StudentDB}. Students are only appended. Not thread-safe:
+ * columns and dictionary are not safely published, so database must not be modified while other threads query it,
+ * in particular while it is shared through {@link CachingStudentDB}. Queries may run concurrently if database
+ * is not modified after it was passed to other threads.
+ * Aggregations over at least {@code parallelThreshold} students are computed by several threads.
+ */
+public class ColumnarStudentDB extends StudentDB implements StudentDataset {
+    private static final GroupName[] GROUP_NAMES = GroupName.values();
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Monoid<int[]> COUNTS_SUM = new Monoid<>(new int[GROUP_NAMES.length], (a, b) -> {
+        int[] result = a.clone();
+        for (int i = 0; i < result.length; i++) {
+            result[i] += b[i];
+        }
+        return result;
+    });
+    private static final Monoid<BitSet> BITS_UNION = new Monoid<>(new BitSet(), (a, b) -> {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    });
+
+    private final StringDictionary names = new StringDictionary();
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int[] firstNames = new int[INITIAL_CAPACITY];
+    private int[] lastNames = new int[INITIAL_CAPACITY];
+    private byte[] groups = new byte[INITIAL_CAPACITY];
+    private int size;
+    private long[] idIndex;
+    private final List<Student> students = new AbstractList<>() {
+        @Override
+        public Student get(int row) {
+            Objects.checkIndex(row, size);
+            return student(row);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    public ColumnarStudentDB() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates empty database that computes aggregations over at least {@code parallelThreshold} students
+     * with {@code threads} threads.
+     */
+    public ColumnarStudentDB(int threads, int parallelThreshold) {
+        super(threads, parallelThreshold);
+    }
+
+    public ColumnarStudentDB(Collection<Student> students) {
+        this();
+        addAll(students);
+    }
+
+    public ColumnarStudentDB(Collection<Student> students, int threads, int parallelThreshold) {
+        this(threads, parallelThreshold);
+        addAll(students);
+    }
+
+    private void addAll(Collection<Student> students) {
+        ensureCapacity(students.size());
+        students.forEach(this::add);
+    }
+
+    /**
+     * Returns unmodifiable view of students of this database in order of addition.
+     * Students are created on every access.
+     */
+    @Override
+    public List<Student> students() {
+        return students;
+    }
+
+    /**
+     * Returns number of students, that changes on every modification. It is read without synchronization,
+     * so it is valid in other threads only if database is not modified after it was passed to them.
+     */
+    @Override
+    public long version() {
+        return size;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > ids.length) {
+            capacity = Math.max(capacity, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            groups = Arrays.copyOf(groups, capacity);
+        }
+    }
+
+    public void add(Student student) {
+        add(student.getId(), student.getFirstName(), student.getLastName(), student.getGroup());
+    }
+
+    void add(int id, String firstName, String lastName, GroupName group) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        firstNames[size] = names.encode(firstName);
+        lastNames[size] = names.encode(lastName);
+        groups[size] = (byte) group.ordinal();
+        size++;
+        idIndex = null;
+    }
+
+    /**
+     * Appends all students of {@code other} database, re-encoding their names by dictionary of this database.
+     */
+    public void addAll(ColumnarStudentDB other) {
+        int[] codes = new int[other.names.size()];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = names.encode(other.names.decode(code));
+        }
+        int count = other.size;
+        ensureCapacity(size + count);
+        System.arraycopy(other.ids, 0, ids, size, count);
+        System.arraycopy(other.groups, 0, groups, size, count);
+        for (int row = 0; row < count; row++) {
+            firstNames[size + row] = codes[other.firstNames[row]];
+            lastNames[size + row] = codes[other.lastNames[row]];
+        }
+        size += count;
+        idIndex = null;
+    }
+
+    /**
+     * Writes dictionary, group names and columns of this database.
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(names.size());
+        for (int code = 0; code < names.size(); code++) {
+            out.writeUTF(names.decode(code));
+        }
+        out.writeInt(GROUP_NAMES.length);
+        for (GroupName group : GROUP_NAMES) {
+            out.writeUTF(group.name());
+        }
+        out.writeInt(size);
+        writeColumn(out, ids);
+        writeColumn(out, firstNames);
+        writeColumn(out, lastNames);
+        out.write(groups, 0, size);
+    }
+
+    private void writeColumn(DataOutput out, int[] column) throws IOException {
+        for (int row = 0; row < size; row++) {
+            out.writeInt(column[row]);
+        }
+    }
+
+    /**
+     * Appends students written by {@link #write(DataOutput)}.
+     *
+     * @throws IOException if data is malformed or refers to unknown group
+     */
+    void read(DataInput in) throws IOException {
+        int[] codes = new int[checkCount(in.readInt())];
+        for (int code = 0; code < codes.length; code++) {
+            codes[code] = names.encode(in.readUTF());
+        }
+        byte[] ordinals = new byte[checkCount(in.readInt())];
+        for (int i = 0; i < ordinals.length; i++) {
+            String name = in.readUTF();
+            try {
+                ordinals[i] = (byte) GroupName.valueOf(name).ordinal();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown group: " + name, e);
+            }
+        }
+        int count = checkCount(in.readInt());
+        ensureCapacity(size + count);
+        for (int row = size; row < size + count; row++) {
+            ids[row] = in.readInt();
+        }
+        readCodes(in, firstNames, count, codes);
+        readCodes(in, lastNames, count, codes);
+        in.readFully(groups, size, count);
+        for (int row = size; row < size + count; row++) {
+            int group = groups[row] & 0xFF;
+            if (group >= ordinals.length) {
+                throw new IOException("Invalid group index: " + group);
+            }
+            groups[row] = ordinals[group];
+        }
+        size += count;
+        idIndex = null;
+    }
+
+    private void readCodes(DataInput in, int[] column, int count, int[] codes) throws IOException {
+        for (int row = size; row < size + count; row++) {
+            int code = in.readInt();
+            if (code < 0 || code >= codes.length) {
+                throw new IOException("Invalid name code: " + code);
+            }
+            column[row] = codes[code];
+        }
+    }
+
+    private static int checkCount(int count) throws IOException {
+        if (count < 0) {
+            throw new IOException("Negative count: " + count);
+        }
+        return count;
+    }
+
+    private int group(int row) {
+        return groups[row] & 0xFF;
+    }
+
+    private Student student(int row) {
+        return new Student(ids[row], names.decode(firstNames[row]), names.decode(lastNames[row]),
+                GROUP_NAMES[group(row)]);
+    }
+
+    private boolean stored(Collection<Student> students) {
+        return students == this.students;
+    }
+
+    /**
+     * Returns {@code (id << 32) | row} of all rows, sorted.
+     */
+    private long[] idIndex() {
+        if (idIndex == null) {
+            long[] index = new long[size];
+            for (int row = 0; row < size; row++) {
+                index[row] = ((long) ids[row] << Integer.SIZE) | row;
+            }
+            Arrays.sort(index);
+            idIndex = index;
+        }
+        return idIndex;
+    }
+
+    /**
+     * Returns keys of rows in order of {@link StudentDB#sortStudentsByName}: last and first names descending
+     * by rank, then id and group ascending.
+     */
+    private IntUnaryOperator[] nameOrder() {
+        int[] ranks = names.ranks();
+        return new IntUnaryOperator[]{
+                row -> -ranks[lastNames[row]],
+                row -> -ranks[firstNames[row]],
+                row -> ids[row],
+                this::group
+        };
+    }
+
+    /**
+     * Sorts {@code rows[from, to)} by {@code keys[level]}, runs of equal key are sorted by following keys.
+     * Every key is packed with row into {@code long}, so rows with equal keys keep their order.
+     */
+    private static void sortRows(int[] rows, int from, int to, IntUnaryOperator[] keys, int level) {
+        if (to - from < 2 || level == keys.length) {
+            return;
+        }
+        long[] packed = new long[to - from];
+        for (int i = from; i < to; i++) {
+            packed[i - from] = (long) keys[level].applyAsInt(rows[i]) << Integer.SIZE | rows[i];
+        }
+        Arrays.sort(packed);
+        int run = from;
+        for (int i = from; i < to; i++) {
+            rows[i] = (int) packed[i - from];
+            if (i > from && packed[i - from] >> Integer.SIZE != packed[i - from - 1] >> Integer.SIZE) {
+                sortRows(rows, run, i, keys, level + 1);
+                run = i;
+            }
+        }
+        sortRows(rows, run, to, keys, level + 1);
+    }
+
+    private List<Student> materialize(int[] rows) {
+        List<Student> result = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            result.add(student(row));
+        }
+        return result;
+    }
+
+    private List<Student> findRows(IntPredicate predicate) {
+        int[] rows = IntStream.range(0, size).filter(predicate).toArray();
+        sortRows(rows, 0, rows.length, nameOrder(), 0);
+        return materialize(rows);
+    }
+
+    /**
+     * Compares rows by {@code keys}, rows with equal keys are ordered by row, like in {@link #sortRows}.
+     */
+    private static int compareRows(IntUnaryOperator[] keys, int a, int b) {
+        for (IntUnaryOperator key : keys) {
+            int result = Integer.compare(key.applyAsInt(a), key.applyAsInt(b));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(a, b);
+    }
+
+    /**
+     * Selects first {@code count} rows satisfying {@code predicate} in order of {@code keys}
+     * using heap of size {@code count}, that keeps greatest selected row at its root.
+     */
+    private int[] selectRows(IntPredicate predicate, IntUnaryOperator[] keys, int count) {
+        IntBinaryOperator order = (a, b) -> compareRows(keys, a, b);
+        int[] heap = new int[Math.min(count, size)];
+        int heapSize = 0;
+        for (int row = 0; row < size; row++) {
+            if (!predicate.test(row)) {
+                continue;
+            }
+            if (heapSize < heap.length) {
+                int i = heapSize++;
+                for (int parent = (i - 1) / 2; i > 0 && order.applyAsInt(row, heap[parent]) > 0;
+                     i = parent, parent = (i - 1) / 2) {
+                    heap[i] = heap[parent];
+                }
+                heap[i] = row;
+            } else if (heapSize > 0 && order.applyAsInt(row, heap[0]) < 0) {
+                int i = 0;
+                for (int child = 1; child < heapSize; i = child, child = 2 * i + 1) {
+                    if (child + 1 < heapSize && order.applyAsInt(heap[child + 1], heap[child]) > 0) {
+                        child++;
+                    }
+                    if (order.applyAsInt(heap[child], row) <= 0) {
+                        break;
+                    }
+                    heap[i] = heap[child];
+                }
+                heap[i] = row;
+            }
+        }
+        int[] rows = Arrays.copyOf(heap, heapSize);
+        sortRows(rows, 0, rows.length, keys, 0);
+        return rows;
+    }
+
+    /**
+     * Returns students of rows satisfying {@code predicate} from position {@code offset} of order of
+     * {@link StudentDB#sortStudentsByName}, creating only {@code limit} students.
+     */
+    private List<Student> findRows(IntPredicate predicate, int offset, int limit) {
+        checkPage(offset, limit);
+        int[] rows = selectRows(predicate, nameOrder(), pageEnd(offset, limit));
+        return materialize(Arrays.copyOfRange(rows, Math.min(offset, rows.length), rows.length));
+    }
+
+    /**
+     * Returns keys of {@code student} in {@link #nameOrder()} or {@code null} if its names are not in dictionary.
+     */
+    private int[] nameKeys(Student student) {
+        int firstName = names.code(student.getFirstName());
+        int lastName = names.code(student.getLastName());
+        if (firstName < 0 || lastName < 0) {
+            return null;
+        }
+        int[] ranks = names.ranks();
+        return new int[]{-ranks[lastName], -ranks[firstName], student.getId(), student.getGroup().ordinal()};
+    }
+
+    /**
+     * Returns page of rows satisfying {@code predicate} that follow {@code cursor} keys in {@link #nameOrder()}.
+     */
+    private Page<Student> pageRows(IntPredicate predicate, int[] cursor, int limit) {
+        checkPage(0, limit);
+        IntUnaryOperator[] keys = nameOrder();
+        IntPredicate follows = cursor == null ? predicate : row -> {
+            for (int level = 0; level < keys.length; level++) {
+                int result = Integer.compare(keys[level].applyAsInt(row), cursor[level]);
+                if (result != 0) {
+                    return result > 0 && predicate.test(row);
+                }
+            }
+            return false;
+        };
+        int[] rows = selectRows(follows, keys, pageEnd(limit, 1));
+        boolean hasMore = rows.length > limit;
+        return new Page<>(materialize(hasMore ? Arrays.copyOf(rows, limit) : rows), hasMore);
+    }
+
+    private <T> List<T> column(IntFunction<T> decoder) {
+        List<T> result = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            result.add(decoder.apply(row));
+        }
+        return result;
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        return stored(students) ? column(row -> names.decode(firstNames[row])) : super.getFirstNames(students);
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        return stored(students) ? column(row -> names.decode(lastNames[row])) : super.getLastNames(students);
+    }
+
+    @Override
+    public List<GroupName> getGroups(List<Student> students) {
+        return stored(students) ? column(row -> GROUP_NAMES[group(row)]) : super.getGroups(students);
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        return stored(students)
+                ? column(row -> names.decode(firstNames[row]) + " " + names.decode(lastNames[row]))
+                : super.getFullNames(students);
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        if (!stored(students)) {
+            return super.getDistinctFirstNames(students);
+        }
+        BitSet codes = new BitSet(names.size());
+        for (int row = 0; row < size; row++) {
+            codes.set(firstNames[row]);
+        }
+        return codes.stream().mapToObj(names::decode).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    @Override
+    public String getMaxStudentFirstName(List<Student> students) {
+        if (!stored(students)) {
+            return super.getMaxStudentFirstName(students);
+        }
+        if (size == 0) {
+            return EMPTY_STRING;
+        }
+        int max = 0;
+        for (int row = 1; row < size; row++) {
+            if (ids[row] > ids[max]) {
+                max = row;
+            }
+        }
+        return names.decode(firstNames[max]);
+    }
+
+    @Override
+    public List<Student> sortStudentsById(Collection<Student> students) {
+        return stored(students)
+                ? materialize(Arrays.stream(idIndex()).mapToInt(key -> (int) key).toArray())
+                : super.sortStudentsById(students);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students) {
+        return stored(students) ? findRows(row -> true) : super.sortStudentsByName(students);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        if (!stored(students)) {
+            return super.findStudentsByFirstName(students, name);
+        }
+        int code = names.code(name);
+        return findRows(row -> firstNames[row] == code);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        if (!stored(students)) {
+            return super.findStudentsByLastName(students, name);
+        }
+        int code = names.code(name);
+        return findRows(row -> lastNames[row] == code);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
+        if (!stored(students)) {
+            return super.findStudentsByGroup(students, group);
+        }
+        int code = group.ordinal();
+        return findRows(row -> group(row) == code);
+    }
+
+    @Override
+    public List<Student> sortStudentsByName(Collection<Student> students, int offset, int limit) {
+        return stored(students)
+                ? findRows(row -> true, offset, limit)
+                : super.sortStudentsByName(students, offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name, int offset, int limit) {
+        if (!stored(students)) {
+            return super.findStudentsByFirstName(students, name, offset, limit);
+        }
+        int code = names.code(name);
+        return findRows(row -> firstNames[row] == code, offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name, int offset, int limit) {
+        if (!stored(students)) {
+            return super.findStudentsByLastName(students, name, offset, limit);
+        }
+        int code = names.code(name);
+        return findRows(row -> lastNames[row] == code, offset, limit);
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group, int offset, int limit) {
+        if (!stored(students)) {
+            return super.findStudentsByGroup(students, group, offset, limit);
+        }
+        int code = group.ordinal();
+        return findRows(row -> group(row) == code, offset, limit);
+    }
+
+    /**
+     * Returns page of stored students in order of {@link StudentDB#sortStudentsByName}, comparing codes of rows
+     * with codes of {@code after}. Cursors with names absent in database are handled like in {@link StudentDB}.
+     */
+    @Override
+    public Page<Student> sortStudentsByNamePage(Collection<Student> students, Student after, int limit) {
+        int[] cursor = after == null ? null : nameKeys(after);
+        if (!stored(students) || after != null && cursor == null) {
+            return super.sortStudentsByNamePage(students, after, limit);
+        }
+        return pageRows(row -> true, cursor, limit);
+    }
+
+    /**
+     * If {@code comparator} is order of {@link StudentDB#sortStudentsByName}, rows are compared with
+     * {@code after} by codes and students are created only for rows following it.
+     */
+    @Override
+    public Page<Student> findStudentsPage(Collection<Student> students, Predicate<? super Student> predicate,
+                                          Comparator<? super Student> comparator, Student after, int limit) {
+        int[] cursor = after == null ? null : nameKeys(after);
+        if (!stored(students) || comparator != defaultComparator || after != null && cursor == null) {
+            return super.findStudentsPage(students, predicate, comparator, after, limit);
+        }
+        return pageRows(row -> predicate.test(student(row)), cursor, limit);
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
+        if (!stored(students)) {
+            return super.findStudentNamesByGroup(students, group);
+        }
+        int code = group.ordinal();
+        int[] ranks = names.ranks();
+        Map<Integer, Integer> codes = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            if (group(row) == code) {
+                codes.merge(lastNames[row], firstNames[row], (a, b) -> ranks[a] <= ranks[b] ? a : b);
+            }
+        }
+        Map<String, String> result = new HashMap<>();
+        codes.forEach((last, first) -> result.put(names.decode(last), names.decode(first)));
+        return result;
+    }
+
+    private List<Group> getSortedGroups(IntUnaryOperator... order) {
+        int[] filled = new int[GROUP_NAMES.length];
+        for (int row = 0; row < size; row++) {
+            filled[group(row)]++;
+        }
+        int[][] buckets = new int[GROUP_NAMES.length][];
+        for (int code = 0; code < GROUP_NAMES.length; code++) {
+            buckets[code] = new int[filled[code]];
+            filled[code] = 0;
+        }
+        for (int row = 0; row < size; row++) {
+            int code = group(row);
+            buckets[code][filled[code]++] = row;
+        }
+        List<Group> result = new ArrayList<>();
+        for (int code = 0; code < GROUP_NAMES.length; code++) {
+            int[] rows = buckets[code];
+            if (rows.length > 0) {
+                sortRows(rows, 0, rows.length, order, 0);
+                result.add(new Group(GROUP_NAMES[code], materialize(rows)));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students) {
+        return stored(students) ? getSortedGroups(nameOrder()) : super.getGroupsByName(students);
+    }
+
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return stored(students)
+                ? getSortedGroups(row -> ids[row])
+                : super.getGroupsById(students);
+    }
+
+    private int[] countGroups(int from, int to) {
+        int[] counts = new int[GROUP_NAMES.length];
+        for (int row = from; row < to; row++) {
+            counts[group(row)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Sets bit {@code major * minorCount + minor} for every row.
+     */
+    private BitSet pairs(int from, int to, IntUnaryOperator major, IntUnaryOperator minor, int minorCount) {
+        BitSet pairs = new BitSet();
+        for (int row = from; row < to; row++) {
+            pairs.set(major.applyAsInt(row) * minorCount + minor.applyAsInt(row));
+        }
+        return pairs;
+    }
+
+    /**
+     * Counts distinct minor codes for every major code of pairs set by {@link #pairs}.
+     */
+    private static int[] countPairs(BitSet pairs, int majorCount, int minorCount) {
+        int[] counts = new int[majorCount];
+        pairs.stream().forEach(pair -> counts[pair / minorCount]++);
+        return counts;
+    }
+
+    @Override
+    public GroupName getLargestGroup(Collection<Student> students) {
+        if (!stored(students)) {
+            return super.getLargestGroup(students);
+        }
+        int[] counts = aggregate(size, this::countGroups, COUNTS_SUM);
+        int best = -1;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0 && (best < 0 || counts[code] >= counts[best])) {
+                best = code;
+            }
+        }
+        return best < 0 ? null : GROUP_NAMES[best];
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(Collection<Student> students) {
+        if (!stored(students)) {
+            return super.getLargestGroupFirstName(students);
+        }
+        int dictionarySize = names.size();
+        BitSet pairs = aggregate(size, (from, to) -> pairs(from, to, this::group, row -> firstNames[row], dictionarySize),
+                BITS_UNION);
+        int[] counts = countPairs(pairs, GROUP_NAMES.length, dictionarySize);
+        int best = -1;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0 && (best < 0 || counts[code] > counts[best])) {
+                best = code;
+            }
+        }
+        return best < 0 ? null : GROUP_NAMES[best];
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        if (!stored(students)) {
+            return super.getMostPopularName(students);
+        }
+        BitSet pairs = aggregate(size, (from, to) -> pairs(from, to, row -> firstNames[row], this::group, GROUP_NAMES.length),
+                BITS_UNION);
+        int[] counts = countPairs(pairs, names.size(), GROUP_NAMES.length);
+        int[] ranks = names.ranks();
+        int best = -1;
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0 && (best < 0 || counts[code] > counts[best]
+                    || counts[code] == counts[best] && ranks[code] < ranks[best])) {
+                best = code;
+            }
+        }
+        return best < 0 ? EMPTY_STRING : names.decode(best);
+    }
+
+    @Override
+    protected <R> List<R> getStudentsIds(Collection<Student> students, int[] ids, Function<Student, R> mapper) {
+        if (!stored(students)) {
+            return super.getStudentsIds(students, ids, mapper);
+        }
+        long[] index = idIndex();
+        List<R> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            int pos = Arrays.binarySearch(index, (long) id << Integer.SIZE);
+            if (pos < 0) {
+                pos = -pos - 1;
+            }
+            if (pos == index.length || (int) (index[pos] >> Integer.SIZE) != id) {
+                throw new NoSuchElementException("No student with id " + id);
+            }
+            result.add(mapper.apply(student((int) index[pos])));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,476 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stateful {@link StudentDB} that keeps its own students and maintains indexes on them.
+ * Queries on {@link #students()} are answered from indexes by {@link StudentQuery}, other collections are queried
+ * like in {@link StudentDB}.
+ * Indexes are updated incrementally by {@link #add(Student)}, {@link #addAll(Collection)} and {@link #remove(int)}.
+ * Students are identified by id.
+ * <p>
+ * Thread-safe. Indexes are immutable snapshots: writers build next snapshot sharing unchanged parts of indexes with
+ * current one and publish it atomically, readers never lock. Every collection returned by {@link #students()}
+ * is bound to its snapshot, so all queries on it see same consistent students.
+ * <p>
+ * Name search index is rebuilt after {@value #NAME_SEARCH_CHANGES} changes of students by single daemon thread
+ * owned by database, students added since last rebuild are searched by scan, see
+ * {@link NameSearchIndex#search(String, int, java.util.function.Predicate, Collection)}.
+ * Rebuild may be awaited by {@link #awaitNameSearch()}, its thread is stopped by {@link #close()}.
+ * If rebuild fails, its failure is reported by {@link #awaitNameSearch()} and rebuild is retried on next change.
+ */
+public class IndexedStudentDB extends StudentDB implements StudentDataset, AutoCloseable {
+    private static final int NAME_SEARCH_CHANGES = 1024;
+
+    private volatile Students current = new Students(Snapshot.EMPTY);
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "name-search-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private boolean rebuilding;
+    private Future<?> pendingRebuild = CompletableFuture.completedFuture(null);
+
+    /**
+     * Name search of snapshot.
+     *
+     * @param index   index built for one of previous snapshots
+     * @param added   students added since index was built, by id
+     * @param changes number of students added and removed since index was built
+     */
+    private record NameSearch(NameSearchIndex index, PersistentTreeMap<Integer, Student> added, int changes) {
+        static final NameSearch EMPTY = new NameSearch(new NameSearchIndex(List.of()), PersistentTreeMap.empty(), 0);
+
+        NameSearch with(Student student) {
+            return new NameSearch(index, added.with(student.getId(), student), changes + 1);
+        }
+
+        NameSearch without(Student student) {
+            return new NameSearch(index, added.get(student.getId()) == student ? added.without(student.getId()) : added,
+                    changes + 1);
+        }
+
+        /**
+         * Returns this name search with {@code index} built for snapshot with {@code base} name search,
+         * that is this one or previous version of it.
+         */
+        NameSearch rebase(NameSearchIndex index, NameSearch base) {
+            PersistentTreeMap<Integer, Student> rest = PersistentTreeMap.empty();
+            for (Map.Entry<Integer, Student> entry : added.entries()) {
+                if (base.added().get(entry.getKey()) != entry.getValue()) {
+                    rest = rest.with(entry.getKey(), entry.getValue());
+                }
+            }
+            return new NameSearch(index, rest, changes - base.changes());
+        }
+    }
+
+    private record Snapshot(
+            PersistentTreeMap<Integer, Student> byId,
+            PersistentSortedSet<Student> idOrder,
+            PersistentSortedSet<Student> nameOrder,
+            PersistentTreeMap<String, PersistentSortedSet<Student>> byFirstName,
+            PersistentTreeMap<String, PersistentSortedSet<Student>> byLastName,
+            PersistentTreeMap<GroupName, PersistentSortedSet<Student>> byGroup,
+            PersistentTreeMap<GroupName, PersistentSortedSet<Student>> byGroupId,
+            PersistentTreeMap<GroupName, PersistentTreeMap<String, Integer>> groupFirstNames,
+            PersistentTreeMap<String, PersistentTreeMap<GroupName, Integer>> firstNameGroups,
+            NameSearch nameSearch,
+            long version
+    ) implements StudentIndex {
+        static final Snapshot EMPTY = new Snapshot(PersistentTreeMap.empty(),
+                PersistentSortedSet.empty(idComparator), PersistentSortedSet.empty(defaultComparator),
+                PersistentTreeMap.empty(), PersistentTreeMap.empty(), PersistentTreeMap.empty(),
+                PersistentTreeMap.empty(), PersistentTreeMap.empty(), PersistentTreeMap.empty(), NameSearch.EMPTY, 0);
+
+        Snapshot with(Student student) {
+            return new Snapshot(byId.with(student.getId(), student),
+                    idOrder.with(student),
+                    nameOrder.with(student),
+                    index(byFirstName, student.getFirstName(), student, defaultComparator),
+                    index(byLastName, student.getLastName(), student, defaultComparator),
+                    index(byGroup, student.getGroup(), student, defaultComparator),
+                    index(byGroupId, student.getGroup(), student, idComparator),
+                    count(groupFirstNames, student.getGroup(), student.getFirstName(), 1),
+                    count(firstNameGroups, student.getFirstName(), student.getGroup(), 1),
+                    nameSearch.with(student),
+                    version + 1);
+        }
+
+        Snapshot without(Student student) {
+            return new Snapshot(byId.without(student.getId()),
+                    idOrder.without(student),
+                    nameOrder.without(student),
+                    unindex(byFirstName, student.getFirstName(), student),
+                    unindex(byLastName, student.getLastName(), student),
+                    unindex(byGroup, student.getGroup(), student),
+                    unindex(byGroupId, student.getGroup(), student),
+                    count(groupFirstNames, student.getGroup(), student.getFirstName(), -1),
+                    count(firstNameGroups, student.getFirstName(), student.getGroup(), -1),
+                    nameSearch.without(student),
+                    version + 1);
+        }
+
+        Snapshot withNameSearch(NameSearch nameSearch) {
+            return new Snapshot(byId, idOrder, nameOrder, byFirstName, byLastName, byGroup, byGroupId,
+                    groupFirstNames, firstNameGroups, nameSearch, version);
+        }
+
+        List<Student> searchNames(String query, int limit) {
+            PersistentTreeMap<Integer, Student> added = nameSearch.added();
+            return nameSearch.index().search(query, limit,
+                    student -> byId.get(student.getId()) == student && added.get(student.getId()) != student,
+                    new AbstractCollection<>() {
+                        @Override
+                        public Iterator<Student> iterator() {
+                            return new Iterator<>() {
+                                private final Iterator<Map.Entry<Integer, Student>> entries =
+                                        added.entries().iterator();
+
+                                @Override
+                                public boolean hasNext() {
+                                    return entries.hasNext();
+                                }
+
+                                @Override
+                                public Student next() {
+                                    return entries.next().getValue();
+                                }
+                            };
+                        }
+
+                        @Override
+                        public int size() {
+                            return added.size();
+                        }
+                    });
+        }
+
+        @Override
+        public Collection<Student> all(Comparator<? super Student> order) {
+            return order == defaultComparator ? nameOrder : idOrder;
+        }
+
+        @Override
+        public Collection<Student> find(StudentQuery.Field field, Object value, Comparator<? super Student> order) {
+            PersistentTreeMap<?, PersistentSortedSet<Student>> index = switch (field) {
+                case FIRST_NAME -> byFirstName;
+                case LAST_NAME -> byLastName;
+                case GROUP -> order == idComparator ? byGroupId : byGroup;
+            };
+            return index.getOrDefault(value, PersistentSortedSet.empty(defaultComparator));
+        }
+    }
+
+    /**
+     * Unmodifiable view of students of snapshot.
+     */
+    private final class Students extends AbstractCollection<Student> {
+        private final Snapshot snapshot;
+
+        Students(Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        IndexedStudentDB database() {
+            return IndexedStudentDB.this;
+        }
+
+        @Override
+        public Iterator<Student> iterator() {
+            return snapshot.idOrder().iterator();
+        }
+
+        @Override
+        public int size() {
+            return snapshot.byId().size();
+        }
+    }
+
+    public IndexedStudentDB() {
+    }
+
+    /**
+     * Creates database of {@code students} with name search index built.
+     *
+     * @throws IllegalArgumentException if students have same ids
+     */
+    public IndexedStudentDB(Collection<Student> students) {
+        Snapshot snapshot = add(Snapshot.EMPTY, students);
+        current = new Students(snapshot.withNameSearch(snapshot.nameSearch().rebase(
+                new NameSearchIndex(snapshot.idOrder()), snapshot.nameSearch())));
+    }
+
+    /**
+     * Returns unmodifiable view of current students of this database, ordered by id.
+     * View doesn't change after modifications of database.
+     */
+    @Override
+    public Collection<Student> students() {
+        return current;
+    }
+
+    @Override
+    public long version() {
+        return current.snapshot.version();
+    }
+
+    /**
+     * Returns query on current students of this database.
+     */
+    public StudentQuery query() {
+        return query(students());
+    }
+
+    private Snapshot snapshot(Collection<Student> students) {
+        return students instanceof IndexedStudentDB.Students view && view.database() == this ? view.snapshot : null;
+    }
+
+    @Override
+    public StudentQuery query(Collection<Student> students) {
+        Snapshot snapshot = snapshot(students);
+        return snapshot != null ? new StudentQuery(students, snapshot) : super.query(students);
+    }
+
+    /**
+     * Returns name search index of last rebuild. It doesn't contain students added since then.
+     */
+    public NameSearchIndex nameSearchIndex() {
+        return current.snapshot.nameSearch().index();
+    }
+
+    /**
+     * Returns number of students added and removed since last rebuild of name search index.
+     */
+    public int nameSearchChanges() {
+        return current.snapshot.nameSearch().changes();
+    }
+
+    @Override
+    public List<Student> searchNames(Collection<Student> students, String query, int limit) {
+        Snapshot snapshot = snapshot(students);
+        return snapshot != null ? snapshot.searchNames(query, limit) : super.searchNames(students, query, limit);
+    }
+
+    /**
+     * Waits until pending rebuild of name search index, if any, is finished.
+     *
+     * @throws IllegalStateException if last rebuild failed, students changed since previous rebuild
+     *                               are searched by scan until next one succeeds
+     * @throws InterruptedException  if current thread was interrupted while waiting
+     */
+    public void awaitNameSearch() throws InterruptedException {
+        Future<?> pending;
+        synchronized (this) {
+            pending = pendingRebuild;
+        }
+        try {
+            pending.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Name search index rebuild failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stops rebuild of name search index. Database remains usable, but its name search index is not rebuilt anymore.
+     */
+    @Override
+    public synchronized void close() {
+        rebuilder.shutdownNow();
+    }
+
+    /**
+     * Publishes next snapshot and starts rebuild of its name search index, if there were enough changes.
+     */
+    private synchronized void publish(Snapshot snapshot) {
+        current = new Students(snapshot);
+        if (!rebuilding && !rebuilder.isShutdown() && snapshot.nameSearch().changes() >= NAME_SEARCH_CHANGES) {
+            rebuilding = true;
+            pendingRebuild = rebuilder.submit(() -> rebuild(snapshot));
+        }
+    }
+
+    /**
+     * Builds name search index of {@code base} and publishes it with current snapshot. Failure is kept by
+     * {@link #pendingRebuild} future, so it is not passed to uncaught exception handler.
+     */
+    private void rebuild(Snapshot base) {
+        NameSearchIndex index;
+        try {
+            index = new NameSearchIndex(base.idOrder());
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                rebuilding = false;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            rebuilding = false;
+            Snapshot snapshot = current.snapshot;
+            publish(snapshot.withNameSearch(snapshot.nameSearch().rebase(index, base.nameSearch())));
+        }
+    }
+
+    private static Snapshot add(Snapshot snapshot, Student student) {
+        if (snapshot.byId().get(student.getId()) != null) {
+            throw new IllegalArgumentException("Duplicate student id: " + student.getId());
+        }
+        return snapshot.with(student);
+    }
+
+    /**
+     * Adds student to database.
+     *
+     * @throws IllegalArgumentException if database contains student with same id
+     */
+    public synchronized void add(Student student) {
+        publish(add(current.snapshot, student));
+    }
+
+    private static Snapshot add(Snapshot snapshot, Collection<Student> students) {
+        for (Student student : students) {
+            snapshot = add(snapshot, student);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Adds all students to database at once, readers see either none or all of them.
+     *
+     * @throws IllegalArgumentException if database contains student with same id as one of added students
+     *                                  or they have same ids; database is not changed then
+     */
+    public synchronized void addAll(Collection<Student> students) {
+        publish(add(current.snapshot, students));
+    }
+
+    /**
+     * Removes student with given id from database.
+     *
+     * @return {@code true} if student was removed
+     */
+    public synchronized boolean remove(int id) {
+        Snapshot snapshot = current.snapshot;
+        Student student = snapshot.byId().get(id);
+        if (student == null) {
+            return false;
+        }
+        publish(snapshot.without(student));
+        return true;
+    }
+
+    /**
+     * Replaces student with same id as given one at once, readers see either old or new student.
+     *
+     * @return {@code true} if student was replaced, {@code false} if database contains no student with such id;
+     * database is not changed then
+     */
+    public synchronized boolean replace(Student student) {
+        Snapshot snapshot = current.snapshot;
+        Student replaced = snapshot.byId().get(student.getId());
+        if (replaced == null) {
+            return false;
+        }
+        publish(snapshot.without(replaced).with(student));
+        return true;
+    }
+
+    private static <K> PersistentTreeMap<K, PersistentSortedSet<Student>>
+    index(PersistentTreeMap<K, PersistentSortedSet<Student>> index, K key, Student student,
+          Comparator<Student> comparator) {
+        return index.with(key, index.getOrDefault(key, PersistentSortedSet.empty(comparator)).with(student));
+    }
+
+    private static <K> PersistentTreeMap<K, PersistentSortedSet<Student>>
+    unindex(PersistentTreeMap<K, PersistentSortedSet<Student>> index, K key, Student student) {
+        PersistentSortedSet<Student> indexed = index.get(key).without(student);
+        return indexed.isEmpty() ? index.without(key) : index.with(key, indexed);
+    }
+
+    private static <K, V extends Comparable<? super V>> PersistentTreeMap<K, PersistentTreeMap<V, Integer>>
+    count(PersistentTreeMap<K, PersistentTreeMap<V, Integer>> counts, K key, V value, int delta) {
+        PersistentTreeMap<V, Integer> values = counts.getOrDefault(key, PersistentTreeMap.empty());
+        int count = values.getOrDefault(value, 0) + delta;
+        values = count == 0 ? values.without(value) : values.with(value, count);
+        return values.isEmpty() ? counts.without(key) : counts.with(key, values);
+    }
+
+    private static <K, V> K largest(PersistentTreeMap<K, V> counts, Function<V, Integer> size,
+                                    Comparator<? super K> thenComparator, K empty) {
+        K largest = empty;
+        int largestSize = -1;
+        for (Map.Entry<K, V> entry : counts.entries()) {
+            int entrySize = size.apply(entry.getValue());
+            if (entrySize > largestSize
+                    || entrySize == largestSize && thenComparator.compare(entry.getKey(), largest) > 0) {
+                largest = entry.getKey();
+                largestSize = entrySize;
+            }
+        }
+        return largest;
+    }
+
+    private static List<Student> slice(Collection<Student> sorted, int offset, int limit) {
+        checkPage(offset, limit);
+        return sorted.stream().skip(offset).limit(limit).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Group> getGroupsByName(Collection<Student> students, int limit) {
+        Snapshot snapshot = snapshot(students);
+        if (snapshot == null) {
+            return super.getGroupsByName(students, limit);
+        }
+        List<Group> groups = new ArrayList<>(snapshot.byGroup().size());
+        for (Map.Entry<GroupName, PersistentSortedSet<Student>> entry : snapshot.byGroup().entries()) {
+            groups.add(new Group(entry.getKey(), slice(entry.getValue(), 0, limit)));
+        }
+        return groups;
+    }
+
+    @Override
+    public GroupName getLargestGroup(Collection<Student> students) {
+        Snapshot snapshot = snapshot(students);
+        return snapshot != null
+                ? largest(snapshot.byGroup(), Set::size, Comparator.naturalOrder(), null)
+                : super.getLargestGroup(students);
+    }
+
+    @Override
+    public GroupName getLargestGroupFirstName(Collection<Student> students) {
+        Snapshot snapshot = snapshot(students);
+        return snapshot != null
+                ? largest(snapshot.groupFirstNames(), PersistentTreeMap::size, Comparator.reverseOrder(), null)
+                : super.getLargestGroupFirstName(students);
+    }
+
+    @Override
+    public String getMostPopularName(Collection<Student> students) {
+        Snapshot snapshot = snapshot(students);
+        return snapshot != null
+                ? largest(snapshot.firstNameGroups(), PersistentTreeMap::size, defaultStringComparator, EMPTY_STRING)
+                : super.getMostPopularName(students);
+    }
+
+    @Override
+    protected <R> List<R> getStudentsIds(Collection<Student> students, int[] ids, Function<Student, R> mapper) {
+        Snapshot snapshot = snapshot(students);
+        if (snapshot == null) {
+            return super.getStudentsIds(students, ids, mapper);
+        }
+        List<R> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(mapper.apply(snapshot.byId().get(id)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,462 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Case-insensitive search of students by name. Students are ranked by quality of match: first, last or full name
+ * equal to query, then starting with query, then full name containing query, then first or last name within
+ * small edit distance from query. Matches of same quality are ranked by popularity of full name, students with same
+ * name are ordered like in {@link StudentDB#sortStudentsByName(Collection)}.
+ * <p>
+ * Prefixes are searched in sorted tokens; most popular names of token range are found by segment tree, so search
+ * stops after {@code limit} students. Substrings are searched among names containing rarest trigram of query in order
+ * of popularity. Fuzzy matches are searched by scanning first and last names. Both are searched only if better matches
+ * are not enough. Index is immutable, students changed after it was built may be searched together with it by
+ * {@link #search(String, int, Predicate, Collection)}.
+ */
+public class NameSearchIndex {
+    private static final int GRAM = 3;
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int SUBSTRING = 2;
+    private static final int FUZZY = 3;
+
+    /**
+     * Statistics of index.
+     *
+     * @param students       number of indexed students
+     * @param names          number of distinct full names
+     * @param tokens         number of distinct first, last and full names
+     * @param grams          number of distinct trigrams
+     * @param buildNanos     time spent to build index
+     * @param estimatedBytes estimated memory used by index, not counting students
+     */
+    public record Stats(int students, int names, int tokens, int grams, long buildNanos, long estimatedBytes) {
+    }
+
+    /**
+     * Tokens from {@code from} to {@code to} exclusive, if {@code position} is negative, otherwise
+     * name at {@code position} of {@code from} token postings.
+     */
+    private record Cursor(int popularity, int from, int to, int position) {
+    }
+
+    /**
+     * Students found by search, names of indexed students are added at most once.
+     */
+    private static class Results {
+        private final List<Student> students = new ArrayList<>();
+        private final Set<Integer> names = new HashSet<>();
+        private final Predicate<? super Student> present;
+        private final int limit;
+
+        Results(Predicate<? super Student> present, int limit) {
+            this.present = present;
+            this.limit = limit;
+        }
+
+        boolean isFull() {
+            return students.size() == limit;
+        }
+
+        void add(Student student) {
+            if (present.test(student)) {
+                students.add(student);
+            }
+        }
+
+        void addAll(List<Student> added) {
+            for (int i = 0; i < added.size() && !isFull(); i++) {
+                students.add(added.get(i));
+            }
+        }
+    }
+
+    private static class IntArray {
+        private int[] values = new int[4];
+        private int size;
+
+        void addDistinct(int value) {
+            if (size == 0 || values[size - 1] != value) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = value;
+            }
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private final String[] names;
+    private final Student[][] students;
+    private final String[] tokens;
+    private final int[][] tokenNames;
+    private final int[] tree;
+    private final int[] words;
+    private final Map<Long, int[]> grams = new HashMap<>();
+    private final Stats stats;
+
+    public NameSearchIndex(Collection<Student> students) {
+        long start = System.nanoTime();
+        Map<String, List<Student>> byName = new HashMap<>();
+        for (Student student : students) {
+            byName.computeIfAbsent(normalize(student.getFirstName()) + " " + normalize(student.getLastName()),
+                    name -> new ArrayList<>()).add(student);
+        }
+        names = byName.keySet().toArray(String[]::new);
+        Arrays.sort(names);
+        this.students = new Student[names.length][];
+        Map<String, IntArray> byToken = new HashMap<>();
+        Set<String> wordTokens = new HashSet<>();
+        Map<Long, IntArray> byGram = new HashMap<>();
+        for (int name = 0; name < names.length; name++) {
+            List<Student> named = byName.get(names[name]);
+            named.sort(StudentDB.defaultComparator);
+            this.students[name] = named.toArray(Student[]::new);
+            String first = normalize(named.get(0).getFirstName());
+            String last = normalize(named.get(0).getLastName());
+            for (String token : List.of(first, last, names[name])) {
+                byToken.computeIfAbsent(token, t -> new IntArray()).addDistinct(name);
+            }
+            wordTokens.add(first);
+            wordTokens.add(last);
+            for (long gram : grams(names[name])) {
+                byGram.computeIfAbsent(gram, g -> new IntArray()).addDistinct(name);
+            }
+        }
+        tokens = byToken.keySet().toArray(String[]::new);
+        Arrays.sort(tokens);
+        tokenNames = new int[tokens.length][];
+        words = new int[wordTokens.size()];
+        for (int token = 0, word = 0; token < tokens.length; token++) {
+            tokenNames[token] = byPopularity(byToken.get(tokens[token]).toArray());
+            if (wordTokens.contains(tokens[token])) {
+                words[word++] = token;
+            }
+        }
+        tree = new int[2 * tokens.length];
+        for (int token = 0; token < tokens.length; token++) {
+            tree[tokens.length + token] = token;
+        }
+        for (int node = tokens.length - 1; node > 0; node--) {
+            tree[node] = better(tree[2 * node], tree[2 * node + 1]);
+        }
+        byGram.forEach((gram, postings) -> grams.put(gram, byPopularity(postings.toArray())));
+        stats = new Stats(students.size(), names.length, tokens.length, grams.size(),
+                System.nanoTime() - start, estimateBytes());
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns normalized full name of {@code student}, that is compared with queries.
+     */
+    static String name(Student student) {
+        return normalize(student.getFirstName()) + " " + normalize(student.getLastName());
+    }
+
+    /**
+     * Returns maximal edit distance of fuzzy matches of normalized {@code query}
+     * or {@code -1} if only exact and prefix matches are searched.
+     */
+    static int maxDistance(String query) {
+        return query.length() < GRAM ? -1 : query.length() <= 5 ? 1 : 2;
+    }
+
+    private static long[] grams(String string) {
+        long[] grams = new long[Math.max(0, string.length() - GRAM + 1)];
+        for (int i = 0; i < grams.length; i++) {
+            // Multiplication by odd constant is bijective and spreads packed chars over hash of Long
+            grams[i] = ((long) string.charAt(i) << 32 | (long) string.charAt(i + 1) << 16 | string.charAt(i + 2))
+                    * 0x9E3779B97F4A7C15L;
+        }
+        return grams;
+    }
+
+    private int popularity(int name) {
+        return students[name].length;
+    }
+
+    private int[] byPopularity(int[] names) {
+        long[] keys = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            keys[i] = (long) -popularity(names[i]) << 32 | names[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < names.length; i++) {
+            names[i] = (int) keys[i];
+        }
+        return names;
+    }
+
+    private int tokenPopularity(int token) {
+        return popularity(tokenNames[token][0]);
+    }
+
+    private int better(int a, int b) {
+        return tokenPopularity(b) > tokenPopularity(a) ? b : a;
+    }
+
+    /**
+     * Returns token with most popular name among tokens from {@code from} to {@code to} exclusive.
+     */
+    private int best(int from, int to) {
+        int result = from;
+        for (int l = from + tokens.length, r = to + tokens.length; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                result = better(result, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                result = better(result, tree[--r]);
+            }
+        }
+        return result;
+    }
+
+    private static long bytes(String string) {
+        return 40 + 2L * string.length();
+    }
+
+    private static long bytes(int[] array) {
+        return 16 + 4L * array.length;
+    }
+
+    private long estimateBytes() {
+        long bytes = 16 + 4L * names.length + 16 + 4L * students.length + 16 + 4L * tokens.length
+                + 16 + 4L * tokenNames.length + bytes(tree) + bytes(words);
+        for (String name : names) {
+            bytes += bytes(name);
+        }
+        for (Student[] named : students) {
+            bytes += 16 + 4L * named.length;
+        }
+        for (int token = 0; token < tokens.length; token++) {
+            bytes += bytes(tokenNames[token]);
+            if (Arrays.binarySearch(names, tokens[token]) < 0) {
+                bytes += bytes(tokens[token]);
+            }
+        }
+        for (int[] postings : grams.values()) {
+            bytes += 48 + bytes(postings);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns statistics of this index, collected when it was built.
+     */
+    public Stats stats() {
+        return stats;
+    }
+
+    /**
+     * Returns first {@code limit} students, whose name matches {@code query} ignoring case.
+     * Substring and fuzzy matches are searched for queries of at least three characters, fuzzy matches may differ
+     * in one edit, or two edits for queries longer than five characters.
+     */
+    public List<Student> search(String query, int limit) {
+        return search(query, limit, student -> true, List.of());
+    }
+
+    /**
+     * Returns first {@code limit} students, whose name matches {@code query} ignoring case, among indexed students
+     * that are {@code present} and students {@code added} after index was built, see {@link #search(String, int)}.
+     * Added students are ranked after indexed students of same match quality, in order of
+     * {@link StudentDB#sortStudentsByName(Collection)}. They are matched by scan, so there should be few of them.
+     */
+    public List<Student> search(String query, int limit, Predicate<? super Student> present,
+                                Collection<Student> added) {
+        StudentDB.checkPage(0, limit);
+        String normalized = normalize(query.strip());
+        Results results = new Results(present, limit);
+        if (normalized.isEmpty() || limit == 0) {
+            return results.students;
+        }
+        int maxDistance = maxDistance(normalized);
+        List<List<Student>> matches = match(normalized, added, maxDistance);
+        int from = Arrays.binarySearch(tokens, normalized);
+        if (from >= 0) {
+            searchTokens(from, from + 1, results);
+        }
+        results.addAll(matches.get(EXACT));
+        from = from < 0 ? -from - 1 : from + 1;
+        int to = -Arrays.binarySearch(tokens, normalized + Character.MAX_VALUE) - 1;
+        searchTokens(from, to, results);
+        results.addAll(matches.get(PREFIX));
+        if (maxDistance >= 0 && !results.isFull()) {
+            for (int name : rarest(grams(normalized))) {
+                if (results.isFull()) {
+                    break;
+                }
+                if (!results.names.contains(name) && names[name].contains(normalized)) {
+                    add(name, results);
+                }
+            }
+            results.addAll(matches.get(SUBSTRING));
+        }
+        if (maxDistance >= 0 && !results.isFull()) {
+            List<PriorityQueue<Cursor>> queues = fuzzy(normalized, maxDistance);
+            for (int distance = 0; distance <= maxDistance; distance++) {
+                search(queues.get(distance), results);
+                results.addAll(matches.get(FUZZY + distance));
+            }
+        }
+        return results.students;
+    }
+
+    /**
+     * Splits students matching {@code query} by match quality: {@link #EXACT}, {@link #PREFIX}, {@link #SUBSTRING}
+     * and {@link #FUZZY} plus edit distance. Students of every quality are sorted by name.
+     */
+    private static List<List<Student>> match(String query, Collection<Student> students, int maxDistance) {
+        List<List<Student>> matches = new ArrayList<>();
+        for (int quality = 0; quality <= FUZZY + Math.max(0, maxDistance); quality++) {
+            matches.add(new ArrayList<>());
+        }
+        for (Student student : students) {
+            int quality = quality(query, student, maxDistance);
+            if (quality >= 0) {
+                matches.get(quality).add(student);
+            }
+        }
+        matches.forEach(matched -> matched.sort(StudentDB.defaultComparator));
+        return matches;
+    }
+
+    /**
+     * Returns quality of match of {@code student} name to normalized {@code query}: {@link #EXACT},
+     * {@link #PREFIX}, {@link #SUBSTRING}, {@link #FUZZY} plus edit distance or {@code -1} if it doesn't match.
+     */
+    static int quality(String query, Student student, int maxDistance) {
+        String first = normalize(student.getFirstName());
+        String last = normalize(student.getLastName());
+        String name = first + " " + last;
+        if (first.equals(query) || last.equals(query) || name.equals(query)) {
+            return EXACT;
+        } else if (first.startsWith(query) || last.startsWith(query) || name.startsWith(query)) {
+            return PREFIX;
+        } else if (maxDistance >= 0 && name.contains(query)) {
+            return SUBSTRING;
+        } else if (maxDistance >= 0) {
+            int distance = Math.min(distance(query, first, maxDistance), distance(query, last, maxDistance));
+            return distance <= maxDistance ? FUZZY + distance : -1;
+        }
+        return -1;
+    }
+
+    private void add(int name, Results results) {
+        if (results.names.add(name)) {
+            for (int i = 0; i < students[name].length && !results.isFull(); i++) {
+                results.add(students[name][i]);
+            }
+        }
+    }
+
+    private static PriorityQueue<Cursor> queue() {
+        return new PriorityQueue<>(Comparator.comparingInt(Cursor::popularity).reversed());
+    }
+
+    private void searchTokens(int from, int to, Results results) {
+        PriorityQueue<Cursor> queue = queue();
+        pushRange(queue, from, to);
+        search(queue, results);
+    }
+
+    /**
+     * Adds students of names from {@code queue} in order of popularity, until {@code limit} students are found.
+     */
+    private void search(PriorityQueue<Cursor> queue, Results results) {
+        while (!results.isFull() && !queue.isEmpty()) {
+            Cursor cursor = queue.remove();
+            if (cursor.position() < 0) {
+                int token = best(cursor.from(), cursor.to());
+                queue.add(new Cursor(tokenPopularity(token), token, token + 1, 0));
+                pushRange(queue, cursor.from(), token);
+                pushRange(queue, token + 1, cursor.to());
+            } else {
+                int[] postings = tokenNames[cursor.from()];
+                add(postings[cursor.position()], results);
+                int next = cursor.position() + 1;
+                if (next < postings.length) {
+                    queue.add(new Cursor(popularity(postings[next]), cursor.from(), cursor.to(), next));
+                }
+            }
+        }
+    }
+
+    private void pushRange(PriorityQueue<Cursor> queue, int from, int to) {
+        if (from < to) {
+            queue.add(new Cursor(tokenPopularity(best(from, to)), from, to, -1));
+        }
+    }
+
+    /**
+     * Returns names containing rarest of {@code queryGrams} or empty array if some of grams is absent.
+     */
+    private int[] rarest(long[] queryGrams) {
+        int[] rarest = null;
+        for (long gram : queryGrams) {
+            int[] postings = grams.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            if (rarest == null || postings.length < rarest.length) {
+                rarest = postings;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * Returns queues of first and last names within every edit distance from {@code query}.
+     */
+    private List<PriorityQueue<Cursor>> fuzzy(String query, int maxDistance) {
+        List<PriorityQueue<Cursor>> queues = new ArrayList<>();
+        for (int distance = 0; distance <= maxDistance; distance++) {
+            queues.add(queue());
+        }
+        for (int token : words) {
+            int distance = distance(query, tokens[token], maxDistance);
+            if (distance <= maxDistance) {
+                queues.get(distance).add(new Cursor(tokenPopularity(token), token, token + 1, 0));
+            }
+        }
+        return queues;
+    }
+
+    /**
+     * Returns Levenshtein distance between strings or {@code limit + 1} if it exceeds {@code limit}.
+     */
+    private static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        Arrays.setAll(previous, j -> j);
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int min = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1], previous[j]) + 1, previous[j - 1] + cost);
+                min = Math.min(min, current[j]);
+            }
+            if (min > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+}
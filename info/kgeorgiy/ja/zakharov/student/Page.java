@@ -0,0 +1,21 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import java.util.List;
+
+/**
+ * Page of sorted query results.
+ *
+ * @param items   elements of page
+ * @param hasMore whether there are elements after this page
+ * @param <T>     type of elements
+ */
+public record Page<T>(List<T> items, boolean hasMore) {
+    /**
+     * Returns last element of page, that is passed to query to get next page.
+     *
+     * @return last element of page or {@code null} if page is empty
+     */
+    public T cursor() {
+        return items.isEmpty() ? null : items.get(items.size() - 1);
+    }
+}
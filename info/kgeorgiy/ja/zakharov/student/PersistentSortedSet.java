@@ -0,0 +1,202 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import java.util.*;
+
+/**
+ * Immutable {@link NavigableSet} based on {@link PersistentTreeMap}. {@link #with(Object)} and {@link #without(Object)}
+ * return new sets sharing structure with this one. Subsets are views with bounds on same tree.
+ *
+ * @param <E> type of elements
+ */
+final class PersistentSortedSet<E> extends AbstractSet<E> implements NavigableSet<E> {
+    private final PersistentTreeMap<E, Boolean> tree;
+    private final E from;
+    private final boolean fromInclusive;
+    private final E to;
+    private final boolean toInclusive;
+
+    private PersistentSortedSet(PersistentTreeMap<E, Boolean> tree, E from, boolean fromInclusive,
+                                E to, boolean toInclusive) {
+        this.tree = tree;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+    }
+
+    private PersistentSortedSet(PersistentTreeMap<E, Boolean> tree) {
+        this(tree, null, false, null, false);
+    }
+
+    static <E> PersistentSortedSet<E> empty(Comparator<? super E> comparator) {
+        return new PersistentSortedSet<>(PersistentTreeMap.empty(comparator));
+    }
+
+    /**
+     * Returns set with {@code element} added to underlying tree.
+     */
+    PersistentSortedSet<E> with(E element) {
+        PersistentTreeMap<E, Boolean> updated = tree.with(element, Boolean.TRUE);
+        return updated == tree ? this : new PersistentSortedSet<>(updated, from, fromInclusive, to, toInclusive);
+    }
+
+    /**
+     * Returns set with {@code element} removed from underlying tree.
+     */
+    PersistentSortedSet<E> without(E element) {
+        PersistentTreeMap<E, Boolean> updated = tree.without(element);
+        return updated == tree ? this : new PersistentSortedSet<>(updated, from, fromInclusive, to, toInclusive);
+    }
+
+    private int compare(E a, E b) {
+        return tree.comparator().compare(a, b);
+    }
+
+    private boolean tooLow(E element) {
+        if (from == null) {
+            return false;
+        }
+        int compared = compare(element, from);
+        return compared < 0 || compared == 0 && !fromInclusive;
+    }
+
+    private boolean tooHigh(E element) {
+        if (to == null) {
+            return false;
+        }
+        int compared = compare(element, to);
+        return compared > 0 || compared == 0 && !toInclusive;
+    }
+
+    @Override
+    public Comparator<? super E> comparator() {
+        return tree.comparator();
+    }
+
+    @Override
+    public int size() {
+        int below = from == null ? 0 : tree.countBelow(from, !fromInclusive);
+        int upTo = to == null ? tree.size() : tree.countBelow(to, toInclusive);
+        return Math.max(0, upTo - below);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !iterator().hasNext();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        E element = (E) o;
+        return !tooLow(element) && !tooHigh(element) && tree.get(element) != null;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return tree.keys(from, fromInclusive, to, toInclusive, false);
+    }
+
+    @Override
+    public Iterator<E> descendingIterator() {
+        return tree.keys(from, fromInclusive, to, toInclusive, true);
+    }
+
+    @Override
+    public NavigableSet<E> descendingSet() {
+        return Collections.unmodifiableNavigableSet(new TreeSet<>(this)).descendingSet();
+    }
+
+    private static <E> E firstOrNull(Iterator<E> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static <E> E firstOrThrow(Iterator<E> iterator) {
+        if (!iterator.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return iterator.next();
+    }
+
+    @Override
+    public E first() {
+        return firstOrThrow(iterator());
+    }
+
+    @Override
+    public E last() {
+        return firstOrThrow(descendingIterator());
+    }
+
+    @Override
+    public E lower(E e) {
+        return firstOrNull(headSet(e, false).descendingIterator());
+    }
+
+    @Override
+    public E floor(E e) {
+        return firstOrNull(headSet(e, true).descendingIterator());
+    }
+
+    @Override
+    public E ceiling(E e) {
+        return firstOrNull(tailSet(e, true).iterator());
+    }
+
+    @Override
+    public E higher(E e) {
+        return firstOrNull(tailSet(e, false).iterator());
+    }
+
+    @Override
+    public E pollFirst() {
+        throw new UnsupportedOperationException("Persistent set is immutable");
+    }
+
+    @Override
+    public E pollLast() {
+        throw new UnsupportedOperationException("Persistent set is immutable");
+    }
+
+    @Override
+    public NavigableSet<E> subSet(E fromElement, boolean fromInclusive, E toElement, boolean toInclusive) {
+        return tailSet(fromElement, fromInclusive).headSet(toElement, toInclusive);
+    }
+
+    @Override
+    public NavigableSet<E> headSet(E toElement, boolean inclusive) {
+        Objects.requireNonNull(toElement);
+        if (to != null && !tooHigh(toElement) && compare(toElement, to) == 0) {
+            inclusive &= toInclusive;
+        } else if (tooHigh(toElement)) {
+            return this;
+        }
+        return new PersistentSortedSet<>(tree, from, fromInclusive, toElement, inclusive);
+    }
+
+    @Override
+    public NavigableSet<E> tailSet(E fromElement, boolean inclusive) {
+        Objects.requireNonNull(fromElement);
+        if (from != null && !tooLow(fromElement) && compare(fromElement, from) == 0) {
+            inclusive &= fromInclusive;
+        } else if (tooLow(fromElement)) {
+            return this;
+        }
+        return new PersistentSortedSet<>(tree, fromElement, inclusive, to, toInclusive);
+    }
+
+    @Override
+    public SortedSet<E> subSet(E fromElement, E toElement) {
+        return subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> headSet(E toElement) {
+        return headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<E> tailSet(E fromElement) {
+        return tailSet(fromElement, true);
+    }
+}
@@ -0,0 +1,253 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable sorted map based on treap. Modifications return new map that shares all nodes except
+ * {@code O(log n)} expected nodes on path to modified key, so old versions stay valid and may be read concurrently.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+final class PersistentTreeMap<K, V> {
+    private record Node<K, V>(K key, V value, int priority, Node<K, V> left, Node<K, V> right, int size) {
+        Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+            this(key, value, priority, left, right, 1 + PersistentTreeMap.size(left) + PersistentTreeMap.size(right));
+        }
+
+        Node<K, V> withLeft(Node<K, V> left) {
+            return new Node<>(key, value, priority, left, right);
+        }
+
+        Node<K, V> withRight(Node<K, V> right) {
+            return new Node<>(key, value, priority, left, right);
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    static <K, V> PersistentTreeMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentTreeMap<>(comparator, null);
+    }
+
+    static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+        return empty(Comparator.naturalOrder());
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size();
+    }
+
+    Comparator<? super K> comparator() {
+        return comparator;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    V get(Object key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    V getOrDefault(Object key, V defaultValue) {
+        for (Node<K, V> node = root; node != null; ) {
+            int compared = comparator.compare((K) key, node.key());
+            if (compared == 0) {
+                return node.value();
+            }
+            node = compared < 0 ? node.left() : node.right();
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns map that maps {@code key} to {@code value}.
+     */
+    PersistentTreeMap<K, V> with(K key, V value) {
+        Node<K, V> updated = insert(root, key, value);
+        return updated == root ? this : new PersistentTreeMap<>(comparator, updated);
+    }
+
+    /**
+     * Returns map without {@code key}.
+     */
+    PersistentTreeMap<K, V> without(K key) {
+        Node<K, V> updated = remove(root, key);
+        return updated == root ? this : new PersistentTreeMap<>(comparator, updated);
+    }
+
+    private Node<K, V> insert(Node<K, V> node, K key, V value) {
+        if (node == null) {
+            return new Node<>(key, value, ThreadLocalRandom.current().nextInt(), null, null);
+        }
+        int compared = comparator.compare(key, node.key());
+        if (compared == 0) {
+            return node.value() == value ? node
+                    : new Node<>(node.key(), value, node.priority(), node.left(), node.right(), node.size());
+        } else if (compared < 0) {
+            Node<K, V> left = insert(node.left(), key, value);
+            if (left == node.left()) {
+                return node;
+            }
+            return left.priority() > node.priority() ? left.withRight(node.withLeft(left.right())) : node.withLeft(left);
+        } else {
+            Node<K, V> right = insert(node.right(), key, value);
+            if (right == node.right()) {
+                return node;
+            }
+            return right.priority() > node.priority() ? right.withLeft(node.withRight(right.left())) : node.withRight(right);
+        }
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) {
+            return null;
+        }
+        int compared = comparator.compare(key, node.key());
+        if (compared == 0) {
+            return merge(node.left(), node.right());
+        } else if (compared < 0) {
+            Node<K, V> left = remove(node.left(), key);
+            return left == node.left() ? node : node.withLeft(left);
+        } else {
+            Node<K, V> right = remove(node.right(), key);
+            return right == node.right() ? node : node.withRight(right);
+        }
+    }
+
+    private static <K, V> Node<K, V> merge(Node<K, V> left, Node<K, V> right) {
+        if (left == null) {
+            return right;
+        } else if (right == null) {
+            return left;
+        } else if (left.priority() > right.priority()) {
+            return left.withRight(merge(left.right(), right));
+        } else {
+            return right.withLeft(merge(left, right.left()));
+        }
+    }
+
+    /**
+     * Returns entries in order of keys.
+     */
+    Iterable<Map.Entry<K, V>> entries() {
+        return () -> {
+            Iterator<Node<K, V>> nodes = nodes(null, false, null, false, false);
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return nodes.hasNext();
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    Node<K, V> node = nodes.next();
+                    return Map.entry(node.key(), node.value());
+                }
+            };
+        };
+    }
+
+    /**
+     * Returns number of keys less than {@code key}, or not greater if {@code inclusive}.
+     */
+    int countBelow(K key, boolean inclusive) {
+        int count = 0;
+        for (Node<K, V> node = root; node != null; ) {
+            int compared = comparator.compare(node.key(), key);
+            if (compared < 0 || compared == 0 && inclusive) {
+                count += size(node.left()) + 1;
+                node = node.right();
+            } else {
+                node = node.left();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns iterator over keys between bounds, {@code null} bound is unbounded.
+     */
+    Iterator<K> keys(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+        Iterator<Node<K, V>> nodes = nodes(from, fromInclusive, to, toInclusive, descending);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return nodes.next().key();
+            }
+        };
+    }
+
+    private Iterator<Node<K, V>> nodes(K from, boolean fromInclusive, K to, boolean toInclusive, boolean descending) {
+        K start = descending ? to : from;
+        boolean startInclusive = descending ? toInclusive : fromInclusive;
+        K end = descending ? from : to;
+        boolean endInclusive = descending ? fromInclusive : toInclusive;
+        int direction = descending ? -1 : 1;
+        Deque<Node<K, V>> stack = new ArrayDeque<>();
+        for (Node<K, V> node = root; node != null; ) {
+            int compared = start == null ? 1 : direction * Integer.signum(comparator.compare(node.key(), start));
+            if (compared > 0 || compared == 0 && startInclusive) {
+                stack.push(node);
+                node = descending ? node.right() : node.left();
+            } else {
+                node = descending ? node.left() : node.right();
+            }
+        }
+        return new Iterator<>() {
+            private Node<K, V> next = advance();
+
+            private Node<K, V> advance() {
+                if (stack.isEmpty()) {
+                    return null;
+                }
+                Node<K, V> node = stack.pop();
+                for (Node<K, V> child = descending ? node.left() : node.right(); child != null;
+                     child = descending ? child.right() : child.left()) {
+                    stack.push(child);
+                }
+                if (end != null) {
+                    int compared = direction * Integer.signum(comparator.compare(node.key(), end));
+                    if (compared > 0 || compared == 0 && !endInclusive) {
+                        stack.clear();
+                        return null;
+                    }
+                }
+                return node;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Node<K, V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node<K, V> result = next;
+                next = advance();
+                return result;
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import java.util.*;
+
+/**
+ * Append-only dictionary that encodes strings by consecutive int codes.
+ */
+public class StringDictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private int[] ranks;
+
+    /**
+     * Returns code of {@code string}, adding it to dictionary if absent.
+     */
+    public int encode(String string) {
+        Integer code = codes.get(string);
+        if (code == null) {
+            code = strings.size();
+            codes.put(string, code);
+            strings.add(string);
+            ranks = null;
+        }
+        return code;
+    }
+
+    /**
+     * Returns code of {@code string} or {@code -1} if dictionary doesn't contain it.
+     */
+    public int code(String string) {
+        return codes.getOrDefault(string, -1);
+    }
+
+    public String decode(int code) {
+        return strings.get(code);
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Returns positions of strings in natural order, indexed by code, so that strings can be compared by codes.
+     */
+    public int[] ranks() {
+        if (ranks == null) {
+            Integer[] order = new Integer[strings.size()];
+            Arrays.setAll(order, code -> code);
+            Arrays.sort(order, Comparator.comparing(strings::get));
+            int[] result = new int[order.length];
+            for (int rank = 0; rank < order.length; rank++) {
+                result[order[rank]] = rank;
+            }
+            ranks = result;
+        }
+        return ranks;
+    }
+}
@@ -1,29 +1,71 @@
 package info.kgeorgiy.ja.zakharov.student;
 
+import info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism;
+import info.kgeorgiy.java.advanced.concurrent.AdvancedIP.Monoid;
 import info.kgeorgiy.java.advanced.student.*;
 
 import java.util.*;
 import java.util.function.*;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * {@link AdvancedQuery} over collections of students.
+ * Aggregations over at least {@code parallelThreshold} students are computed by several threads.
+ */
 public class StudentDB implements AdvancedQuery {
-    private static final String EMPTY_STRING = "";
-    private static final Comparator<String> defaultStringComparator = Comparator.reverseOrder();
-    private static final Comparator<Student> defaultComparator =
+    static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+    static final String EMPTY_STRING = "";
+    static final Comparator<String> defaultStringComparator = Comparator.reverseOrder();
+    static final Comparator<Student> defaultComparator =
             Comparator.comparing(Student::getLastName, defaultStringComparator)
                     .thenComparing(Student::getFirstName, defaultStringComparator)
                     .thenComparing(Student::getId).thenComparing(Student::getGroup);
-    private static final Comparator<Student> idComparator = Comparator.comparing(Student::getId);
+    static final Comparator<Student> idComparator = Comparator.comparing(Student::getId);
 
+    private final IterativeParallelism parallelism = new IterativeParallelism();
+    private final int threads;
+    private final int parallelThreshold;
 
-    private <T, C extends Collection<T>>
-    C mappedStudentsCollection(List<Student> students, Function<Student, T> mapper, Supplier<C> collectionFactory) {
-        return students.stream().map(mapper).collect(Collectors.toCollection(collectionFactory));
+    public StudentDB() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Creates database that computes aggregations over at least {@code parallelThreshold} students
+     * with {@code threads} threads.
+     */
+    public StudentDB(int threads, int parallelThreshold) {
+        this.threads = threads;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Computes {@code block} over range {@code [0, size)}, splitting it between threads if it is large enough.
+     * If calling thread is interrupted, range is processed by it.
+     */
+    <R> R aggregate(int size, BiFunction<Integer, Integer, R> block, Monoid<R> monoid) {
+        if (threads > 1 && size >= parallelThreshold) {
+            try {
+                return parallelism.mapReduceRanges(threads, size, block, monoid);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return block.apply(0, size);
+    }
+
+
+    /**
+     * Returns query on {@code students}.
+     */
+    public StudentQuery query(Collection<Student> students) {
+        return StudentQuery.from(students);
     }
 
     private <T> List<T> mappedStudentsList(List<Student> students, Function<Student, T> mapper) {
-        return mappedStudentsCollection(students, mapper, ArrayList::new);
+        return query(students).map(mapper);
     }
 
     @Override
@@ -52,26 +94,17 @@ public class StudentDB implements AdvancedQuery {
 
     @Override
     public Set<String> getDistinctFirstNames(List<Student> students) {
-        return mappedStudentsCollection(students, Student::getFirstName, TreeSet::new);
+        return new TreeSet<>(mappedStudentsList(students, Student::getFirstName));
     }
 
     @Override
     public String getMaxStudentFirstName(List<Student> students) {
-        return students.stream().max(idComparator)
-                .map(Student::getFirstName).orElse(EMPTY_STRING);
+        List<String> names = query(students).orderBy(idComparator.reversed()).limit(1).map(Student::getFirstName);
+        return names.isEmpty() ? EMPTY_STRING : names.get(0);
     }
 
     private List<Student> sortStudents(Collection<Student> students, Comparator<Student> studentComparator) {
-        return students.stream().sorted(studentComparator).collect(Collectors.toList());
-    }
-
-    private Stream<Student> filterStudentsAndSort(Collection<Student> students, Predicate<Student> predicate,
-                                                  Comparator<Student> comparator) {
-        return students.stream().filter(predicate).sorted(comparator);
-    }
-
-    private List<Student> findStudentsByPredicate(Collection<Student> students, Predicate<Student> predicate) {
-        return filterStudentsAndSort(students, predicate, defaultComparator).collect(Collectors.toList());
+        return query(students).orderBy(studentComparator).list();
     }
 
     @Override
@@ -86,30 +119,162 @@ public class StudentDB implements AdvancedQuery {
 
     @Override
     public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
-        return findStudentsByPredicate(students, student -> student.getFirstName().equals(name));
+        return query(students).whereFirstName(name).orderBy(defaultComparator).list();
     }
 
     @Override
     public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
-        return findStudentsByPredicate(students, student -> student.getLastName().equals(name));
-    }
-
-    private Predicate<Student> groupNamePredicate(GroupName group) {
-        return student -> student.getGroup().equals(group);
+        return query(students).whereLastName(name).orderBy(defaultComparator).list();
     }
 
     @Override
     public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group) {
-        return findStudentsByPredicate(students, groupNamePredicate(group));
+        return query(students).whereGroup(group).orderBy(defaultComparator).list();
     }
 
     @Override
     public Map<String, String> findStudentNamesByGroup(Collection<Student> students, GroupName group) {
-        return filterStudentsAndSort(students, groupNamePredicate(group), defaultComparator)
+        return query(students).whereGroup(group).list().stream()
                 .collect(Collectors.toMap(Student::getLastName,
                         Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
     }
 
+    private record Ranked<T>(T value, long position) {
+    }
+
+    /**
+     * Selects first {@code count} elements of {@code values} satisfying {@code predicate} in order of
+     * {@code comparator} using heap of size {@code count}. Equal elements keep encounter order.
+     */
+    static <T> List<T> selectFirst(Iterable<? extends T> values, Predicate<? super T> predicate,
+                                   Comparator<? super T> comparator, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Ranked<T>> order = Comparator.<Ranked<T>, T>comparing(Ranked::value, comparator)
+                .thenComparingLong(Ranked::position);
+        PriorityQueue<Ranked<T>> heap = new PriorityQueue<>(order.reversed());
+        long position = 0;
+        for (T value : values) {
+            if (predicate.test(value)) {
+                Ranked<T> ranked = new Ranked<>(value, position++);
+                if (heap.size() < count) {
+                    heap.add(ranked);
+                } else if (order.compare(ranked, heap.element()) < 0) {
+                    heap.remove();
+                    heap.add(ranked);
+                }
+            }
+        }
+        return heap.stream().sorted(order).map(Ranked::value).collect(Collectors.toList());
+    }
+
+    static void checkPage(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit should be non-negative: " + offset + ", " + limit);
+        }
+    }
+
+    static int pageEnd(int offset, int limit) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+    }
+
+    public List<Student> findStudents(Collection<Student> students, Predicate<? super Student> predicate,
+                                      Comparator<? super Student> comparator, int offset, int limit) {
+        checkPage(offset, limit);
+        return query(students).where(predicate).orderBy(comparator).offset(offset).limit(limit).list();
+    }
+
+    /**
+     * Returns first {@code limit} students satisfying {@code predicate}, that follow {@code after}
+     * in order of {@code comparator}. Comparator should distinguish all students, e.g. compare ids.
+     *
+     * @param after cursor of previous page or {@code null} for first page
+     */
+    public Page<Student> findStudentsPage(Collection<Student> students, Predicate<? super Student> predicate,
+                                          Comparator<? super Student> comparator, Student after, int limit) {
+        return page(query(students).where(predicate), comparator, after, limit);
+    }
+
+    static Page<Student> page(StudentQuery query, Comparator<? super Student> comparator, Student after, int limit) {
+        checkPage(0, limit);
+        List<Student> selected = query.orderBy(comparator).after(after).limit(pageEnd(limit, 1)).list();
+        boolean hasMore = selected.size() > limit;
+        return new Page<>(hasMore ? new ArrayList<>(selected.subList(0, limit)) : selected, hasMore);
+    }
+
+    private List<Student> findPage(StudentQuery query, int offset, int limit) {
+        checkPage(offset, limit);
+        return query.orderBy(defaultComparator).offset(offset).limit(limit).list();
+    }
+
+    public List<Student> sortStudentsByName(Collection<Student> students, int offset, int limit) {
+        return findPage(query(students), offset, limit);
+    }
+
+    public Page<Student> sortStudentsByNamePage(Collection<Student> students, Student after, int limit) {
+        return page(query(students), defaultComparator, after, limit);
+    }
+
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name, int offset, int limit) {
+        return findPage(query(students).whereFirstName(name), offset, limit);
+    }
+
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name, int offset, int limit) {
+        return findPage(query(students).whereLastName(name), offset, limit);
+    }
+
+    public List<Student> findStudentsByGroup(Collection<Student> students, GroupName group, int offset, int limit) {
+        return findPage(query(students).whereGroup(group), offset, limit);
+    }
+
+    /**
+     * Student whose normalized {@code name} matches query with {@code quality}
+     * and is shared by {@code popularity} matched students.
+     */
+    private record NameMatch(Student student, String name, int quality, int popularity) {
+    }
+
+    private static final Comparator<NameMatch> NAME_MATCH_ORDER = Comparator.comparingInt(NameMatch::quality)
+            .thenComparing(Comparator.comparingInt(NameMatch::popularity).reversed())
+            .thenComparing(NameMatch::name)
+            .thenComparing(NameMatch::student, defaultComparator);
+
+    /**
+     * Returns first {@code limit} students ranked by match of their names to {@code query}, like
+     * {@link NameSearchIndex#search(String, int)}. First pass counts students of every matching name,
+     * second pass selects best matches by heap of size {@code limit}, so no index is built.
+     */
+    public List<Student> searchNames(Collection<Student> students, String query, int limit) {
+        checkPage(0, limit);
+        String normalized = NameSearchIndex.normalize(query.strip());
+        if (normalized.isEmpty() || limit == 0) {
+            return new ArrayList<>();
+        }
+        int maxDistance = NameSearchIndex.maxDistance(normalized);
+        Map<String, int[]> matches = new HashMap<>();
+        for (Student student : students) {
+            int quality = NameSearchIndex.quality(normalized, student, maxDistance);
+            if (quality >= 0) {
+                matches.computeIfAbsent(NameSearchIndex.name(student), name -> new int[]{quality, 0})[1]++;
+            }
+        }
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Iterable<NameMatch> ranked = () -> students.stream()
+                .map(student -> {
+                    String name = NameSearchIndex.name(student);
+                    int[] match = matches.get(name);
+                    return match == null ? null : new NameMatch(student, name, match[0], match[1]);
+                })
+                .filter(Objects::nonNull)
+                .iterator();
+        return selectFirst(ranked, match -> true, NAME_MATCH_ORDER, limit).stream()
+                .map(NameMatch::student)
+                .collect(Collectors.toList());
+    }
+
     private <C> Stream<Map.Entry<C, List<Student>>>
     getEntryStream(Collection<Student> students, Function<Student, C> classifier,
                    Supplier<Map<C, List<Student>>> mapFactory) {
@@ -117,54 +282,84 @@ public class StudentDB implements AdvancedQuery {
                 .groupingBy(classifier, mapFactory, Collectors.toList())).entrySet().stream();
     }
 
-    private List<Group> getSortedGroups(Collection<Student> students, UnaryOperator<List<Student>> sorter) {
-        return getEntryStream(students, Student::getGroup, TreeMap::new)
-                .map(entry -> new Group(entry.getKey(), sorter.apply(entry.getValue())))
+    private List<Group> getSortedGroups(Collection<Student> students, Comparator<Student> comparator) {
+        return query(students).orderBy(comparator).groupBy(Student::getGroup, TreeMap::new).entrySet().stream()
+                .map(entry -> new Group(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 
     @Override
     public List<Group> getGroupsByName(Collection<Student> students) {
-        return getSortedGroups(students, this::sortStudentsByName);
+        return getSortedGroups(students, defaultComparator);
     }
 
-    @Override
-    public List<Group> getGroupsById(Collection<Student> students) {
-        return getSortedGroups(students, this::sortStudentsById);
+    public List<Group> getGroupsByName(Collection<Student> students, int limit) {
+        checkPage(0, limit);
+        return getEntryStream(students, Student::getGroup, TreeMap::new)
+                .map(entry -> new Group(entry.getKey(),
+                        selectFirst(entry.getValue(), student -> true, defaultComparator, limit)))
+                .collect(Collectors.toList());
     }
 
-    private GroupName getLargestGroupComparator(Collection<Student> students, ToIntFunction<List<Student>> valueFunc,
-                                                Comparator<GroupName> thenComparator) {
-        return getEntryStream(students, Student::getGroup, HashMap::new).max(Comparator
-                .comparingInt((Map.Entry<GroupName, List<Student>> entry) -> valueFunc.applyAsInt(entry.getValue()))
-                .thenComparing(Map.Entry::getKey, thenComparator)).map(Map.Entry::getKey).orElse(null);
+    @Override
+    public List<Group> getGroupsById(Collection<Student> students) {
+        return getSortedGroups(students, idComparator);
+    }
+
+    /**
+     * Groups {@code students} by {@code classifier}, ranges of large collections are grouped by several threads
+     * and their groups are merged by {@code combiner}.
+     */
+    private <K, V> Map<K, V> groupBy(Collection<Student> students, Function<Student, K> classifier,
+                                     Collector<Student, ?, V> downstream, BinaryOperator<V> combiner) {
+        Collector<Student, ?, Map<K, V>> grouping = Collectors.groupingBy(classifier, downstream);
+        if (threads <= 1 || students.size() < parallelThreshold) {
+            return students.stream().collect(grouping);
+        }
+        Student[] array = students.toArray(new Student[0]);
+        return aggregate(array.length, (from, to) -> Arrays.stream(array, from, to).collect(grouping),
+                new Monoid<>(Map.of(), (a, b) -> {
+                    Map<K, V> result = new HashMap<>(a);
+                    b.forEach((key, value) -> result.merge(key, value, combiner));
+                    return result;
+                }));
+    }
+
+    private static <T> Set<T> union(Set<T> a, Set<T> b) {
+        Set<T> result = new HashSet<>(a);
+        result.addAll(b);
+        return result;
+    }
+
+    private <K, V> K getLargestKey(Collection<Student> students, Function<Student, K> classifier,
+                                   Collector<Student, ?, V> downstream, BinaryOperator<V> combiner,
+                                   ToIntFunction<V> valueFunc, Comparator<K> thenComparator, K empty) {
+        return groupBy(students, classifier, downstream, combiner).entrySet().stream()
+                .max(Comparator.comparingInt((Map.Entry<K, V> entry) -> valueFunc.applyAsInt(entry.getValue()))
+                        .thenComparing(Map.Entry::getKey, thenComparator))
+                .map(Map.Entry::getKey).orElse(empty);
     }
 
     @Override
     public GroupName getLargestGroup(Collection<Student> students) {
-        return getLargestGroupComparator(students, List::size, Comparator.naturalOrder());
+        return getLargestKey(students, Student::getGroup, Collectors.counting(), Long::sum, Math::toIntExact,
+                Comparator.naturalOrder(), null);
     }
 
     @Override
     public GroupName getLargestGroupFirstName(Collection<Student> students) {
-        return getLargestGroupComparator(students, studentsList -> getDistinctFirstNames(studentsList).size(),
-                Comparator.reverseOrder());
-    }
-
-    private long distinctGroupNumbers(List<Student> students) {
-        return students.stream().map(Student::getGroup).distinct().count();
+        return getLargestKey(students, Student::getGroup, Collectors.mapping(Student::getFirstName, Collectors.toSet()),
+                StudentDB::union, Set::size, Comparator.reverseOrder(), null);
     }
 
     @Override
     public String getMostPopularName(Collection<Student> students) {
-        return getEntryStream(students, Student::getFirstName, HashMap::new).max(Comparator
-                        .comparingLong((Map.Entry<String, List<Student>> entry) -> distinctGroupNumbers(entry.getValue()))
-                        .thenComparing(Map.Entry::getKey, defaultStringComparator))
-                .map(Map.Entry::getKey).orElse(EMPTY_STRING);
+        return getLargestKey(students, Student::getFirstName, Collectors.mapping(Student::getGroup, Collectors.toSet()),
+                StudentDB::union, Set::size, defaultStringComparator, EMPTY_STRING);
     }
 
-    private <R> List<R> getStudentsIds(Collection<Student> students, int[] ids,
-                                       Function<Student, R> mapper) {
+    protected <R> List<R> getStudentsIds(Collection<Student> students, int[] ids,
+                                         Function<Student, R> mapper) {
         return Arrays.stream(ids)
                 .mapToObj(students.stream().collect(Collectors.toMap(Student::getId, UnaryOperator.identity()))::get)
                 .map(mapper).toList();
@@ -0,0 +1,20 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.Collection;
+
+/**
+ * Stateful set of students, that is passed to queries as {@link #students()}.
+ */
+public interface StudentDataset {
+    /**
+     * Returns unmodifiable view of students of this dataset.
+     */
+    Collection<Student> students();
+
+    /**
+     * Returns version of dataset, that is changed on every modification of it.
+     */
+    long version();
+}
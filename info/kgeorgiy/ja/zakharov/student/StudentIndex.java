@@ -0,0 +1,24 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Indexes that {@link StudentQuery} may use instead of scanning all students.
+ * Returned collections that are {@link java.util.SortedSet sorted sets} are treated as ordered
+ * by their {@link java.util.SortedSet#comparator() comparator}.
+ */
+interface StudentIndex {
+    /**
+     * Returns all students, preferably ordered by {@code order}.
+     */
+    Collection<Student> all(Comparator<? super Student> order);
+
+    /**
+     * Returns students whose {@code field} equals {@code value}, preferably ordered by {@code order},
+     * or {@code null} if {@code field} is not indexed.
+     */
+    Collection<Student> find(StudentQuery.Field field, Object value, Comparator<? super Student> order);
+}
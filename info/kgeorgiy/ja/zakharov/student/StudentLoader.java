@@ -0,0 +1,231 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.ja.zakharov.concurrent.IterativeParallelism;
+import info.kgeorgiy.java.advanced.student.GroupName;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk loader of {@link ColumnarStudentDB}.
+ * Delimited text files are memory-mapped, split into chunks on line boundaries and parsed by several threads
+ * straight into columns. Databases may be saved to and restored from compact binary snapshots.
+ */
+public final class StudentLoader {
+    private static final int MAGIC = 0x53544442;
+    private static final int FORMAT_VERSION = 1;
+    private static final long MAX_CHUNK_SIZE = 1 << 30;
+    private static final long MIN_CHUNK_SIZE = 1 << 16;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int FIELDS = 4;
+
+    private record Range(long from, long to) {
+    }
+
+    private StudentLoader() {
+    }
+
+    /**
+     * Loads students from delimited text file to new {@link ColumnarStudentDB}.
+     *
+     * @see #loadDelimited(Path, char, int, ColumnarStudentDB)
+     */
+    public static ColumnarStudentDB loadDelimited(Path file, char delimiter, int threads)
+            throws IOException, InterruptedException {
+        ColumnarStudentDB database = new ColumnarStudentDB();
+        loadDelimited(file, delimiter, threads, database);
+        return database;
+    }
+
+    /**
+     * Appends students from UTF-8 text file to {@code database} in file order.
+     * Every non-empty line contains id, first name, last name and group name separated by {@code delimiter},
+     * fields are not quoted and can't contain delimiter.
+     *
+     * @param delimiter ASCII field delimiter
+     * @param threads   number of threads to parse file
+     * @throws IOException if file can't be read or contains malformed line; {@code database} is not changed then
+     */
+    public static void loadDelimited(Path file, char delimiter, int threads, ColumnarStudentDB database)
+            throws IOException, InterruptedException {
+        if (delimiter >= 0x80 || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException("Delimiter should be ASCII character: " + delimiter);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads should be positive: " + threads);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Range> ranges = split(channel, threads);
+            List<IOException> errors = Collections.synchronizedList(new ArrayList<>());
+            List<ColumnarStudentDB> chunks = new IterativeParallelism().map(threads, ranges, range -> {
+                try {
+                    return parse(channel, range, (byte) delimiter);
+                } catch (IOException e) {
+                    errors.add(e);
+                    return null;
+                }
+            });
+            if (!errors.isEmpty()) {
+                IOException error = errors.get(0);
+                errors.subList(1, errors.size()).forEach(error::addSuppressed);
+                throw error;
+            }
+            if (chunks.contains(null)) {
+                throw new IOException("Failed to parse " + file);
+            }
+            chunks.forEach(database::addAll);
+        }
+    }
+
+    private static List<Range> split(FileChannel channel, int threads) throws IOException {
+        long size = channel.size();
+        long count = Math.max(Math.min(threads, size / MIN_CHUNK_SIZE + 1), (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        List<Range> ranges = new ArrayList<>();
+        long from = 0;
+        for (long i = 1; i <= count && from < size; i++) {
+            long to = Math.max(from, lineStart(channel, size / count * i + Math.min(i, size % count)));
+            if (to - from > Integer.MAX_VALUE) {
+                throw new IOException("Line is too long at byte " + from);
+            }
+            if (to > from) {
+                ranges.add(new Range(from, to));
+            }
+            from = to;
+        }
+        return ranges;
+    }
+
+    private static long lineStart(FileChannel channel, long position) throws IOException {
+        long size = channel.size();
+        if (position <= 0 || position >= size) {
+            return Math.min(Math.max(position, 0), size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (long offset = position - 1; offset < size; offset += buffer.limit()) {
+            buffer.clear();
+            channel.read(buffer, offset);
+            buffer.flip();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (buffer.get(i) == '\n') {
+                    return offset + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static ColumnarStudentDB parse(FileChannel channel, Range range, byte delimiter) throws IOException {
+        ColumnarStudentDB database = new ColumnarStudentDB(1, Integer.MAX_VALUE);
+        ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, range.from(), range.to() - range.from());
+        int[] bounds = new int[FIELDS + 1];
+        byte[] buffer = new byte[256];
+        int limit = chunk.limit();
+        for (int start = 0; start < limit; ) {
+            int end = start;
+            while (end < limit && chunk.get(end) != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && chunk.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > start) {
+                int fields = 0;
+                bounds[fields++] = start;
+                for (int i = start; i < end && fields <= FIELDS; i++) {
+                    if (chunk.get(i) == delimiter) {
+                        bounds[fields++] = i + 1;
+                    }
+                }
+                if (fields != FIELDS) {
+                    throw malformed(range, start, "expected " + FIELDS + " fields");
+                }
+                bounds[FIELDS] = end + 1;
+                if (buffer.length < end - start) {
+                    buffer = new byte[end - start];
+                }
+                int id = parseId(chunk, bounds[0], bounds[1] - 1, range);
+                String firstName = string(chunk, bounds[1], bounds[2] - 1, buffer);
+                String lastName = string(chunk, bounds[2], bounds[3] - 1, buffer);
+                String group = string(chunk, bounds[3], bounds[4] - 1, buffer);
+                try {
+                    database.add(id, firstName, lastName, GroupName.valueOf(group));
+                } catch (IllegalArgumentException e) {
+                    throw malformed(range, start, "unknown group " + group);
+                }
+            }
+            start = next;
+        }
+        return database;
+    }
+
+    private static String string(ByteBuffer chunk, int from, int to, byte[] buffer) {
+        chunk.get(from, buffer, 0, to - from);
+        return new String(buffer, 0, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static int parseId(ByteBuffer chunk, int from, int to, Range range) throws IOException {
+        boolean negative = from < to && chunk.get(from) == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            int digit = chunk.get(i) - '0';
+            if (digit < 0 || digit > 9 || (value = value * 10 + digit) > Integer.MAX_VALUE + 1L) {
+                throw malformed(range, from, "invalid id");
+            }
+        }
+        if (to - from == (negative ? 1 : 0) || !negative && value > Integer.MAX_VALUE) {
+            throw malformed(range, from, "invalid id");
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    private static IOException malformed(Range range, int position, String message) {
+        return new IOException("Malformed line at byte " + (range.from() + position) + ": " + message);
+    }
+
+    /**
+     * Saves students of {@code database} to binary snapshot.
+     */
+    public static void saveSnapshot(ColumnarStudentDB database, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            database.write(out);
+        }
+    }
+
+    public static ColumnarStudentDB loadSnapshot(Path file) throws IOException {
+        ColumnarStudentDB database = new ColumnarStudentDB();
+        loadSnapshot(file, database);
+        return database;
+    }
+
+    /**
+     * Appends students from binary snapshot saved by {@link #saveSnapshot(ColumnarStudentDB, Path)}
+     * to {@code database}.
+     *
+     * @throws IOException if file can't be read or is not a snapshot
+     */
+    public static void loadSnapshot(Path file, ColumnarStudentDB database) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a student snapshot: " + file);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version: " + version);
+            }
+            database.read(in);
+        }
+    }
+}
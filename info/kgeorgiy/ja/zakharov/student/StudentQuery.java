@@ -0,0 +1,343 @@
+package info.kgeorgiy.ja.zakharov.student;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Query on students, composed of equality conditions, arbitrary filters, order, cursor, offset and limit.
+ * Query chooses the most selective index of its database for one of equality conditions, skips sorting
+ * if index is already ordered as requested and evaluates other filters, cursor and limit in the same pass.
+ * Without indexes students are scanned. Chosen plan is returned by {@link #explain()}.
+ * Queries are mutable builders and are not thread-safe.
+ */
+public final class StudentQuery {
+    /**
+     * Fields of student that may be indexed.
+     */
+    public enum Field {
+        FIRST_NAME(Student::getFirstName),
+        LAST_NAME(Student::getLastName),
+        GROUP(Student::getGroup);
+
+        private final Function<Student, Object> getter;
+
+        Field(Function<Student, Object> getter) {
+            this.getter = getter;
+        }
+
+        public Object get(Student student) {
+            return getter.apply(student);
+        }
+    }
+
+    /**
+     * Execution plan of query.
+     *
+     * @param access  how students are obtained
+     * @param filters conditions checked for every obtained student
+     * @param sort    how students are ordered
+     * @param offset  number of skipped students
+     * @param limit   maximal number of returned students
+     */
+    public record Plan(String access, List<String> filters, String sort, int offset, int limit) {
+        @Override
+        public String toString() {
+            return access + " -> filter " + filters + " -> " + sort
+                    + " -> offset " + offset + (limit == Integer.MAX_VALUE ? "" : " limit " + limit);
+        }
+    }
+
+    private record Condition(Field field, Object value) implements Predicate<Student> {
+        @Override
+        public boolean test(Student student) {
+            return value.equals(field.get(student));
+        }
+
+        @Override
+        public String toString() {
+            return field + "=" + value;
+        }
+    }
+
+    private record Access(Collection<Student> students, Condition condition, boolean ordered) {
+    }
+
+    private final Collection<Student> students;
+    private final StudentIndex index;
+    private final List<Condition> conditions = new ArrayList<>();
+    private final List<Predicate<? super Student>> predicates = new ArrayList<>();
+    private Comparator<? super Student> order;
+    private Student after;
+    private int offset;
+    private int limit = Integer.MAX_VALUE;
+
+    StudentQuery(Collection<Student> students, StudentIndex index) {
+        this.students = students;
+        this.index = index;
+    }
+
+    /**
+     * Creates query that scans {@code students}.
+     */
+    public static StudentQuery from(Collection<Student> students) {
+        return new StudentQuery(students, null);
+    }
+
+    public StudentQuery where(Field field, Object value) {
+        conditions.add(new Condition(Objects.requireNonNull(field), Objects.requireNonNull(value)));
+        return this;
+    }
+
+    public StudentQuery whereFirstName(String name) {
+        return where(Field.FIRST_NAME, name);
+    }
+
+    public StudentQuery whereLastName(String name) {
+        return where(Field.LAST_NAME, name);
+    }
+
+    public StudentQuery whereGroup(GroupName group) {
+        return where(Field.GROUP, group);
+    }
+
+    /**
+     * Adds filter that can't be answered by indexes.
+     */
+    public StudentQuery where(Predicate<? super Student> predicate) {
+        predicates.add(Objects.requireNonNull(predicate));
+        return this;
+    }
+
+    public StudentQuery orderBy(Comparator<? super Student> order) {
+        this.order = Objects.requireNonNull(order);
+        return this;
+    }
+
+    /**
+     * Orders students by id.
+     */
+    public StudentQuery orderById() {
+        return orderBy(StudentDB.idComparator);
+    }
+
+    /**
+     * Orders students like {@link StudentDB#sortStudentsByName(Collection)}.
+     */
+    public StudentQuery orderByName() {
+        return orderBy(StudentDB.defaultComparator);
+    }
+
+    /**
+     * Selects only students that follow {@code after} in query order, {@code null} selects all students.
+     */
+    public StudentQuery after(Student after) {
+        this.after = after;
+        return this;
+    }
+
+    public StudentQuery offset(int offset) {
+        StudentDB.checkPage(offset, 0);
+        this.offset = offset;
+        return this;
+    }
+
+    public StudentQuery limit(int limit) {
+        StudentDB.checkPage(0, limit);
+        this.limit = limit;
+        return this;
+    }
+
+    private boolean ordered(Collection<Student> students, Comparator<? super Student> order) {
+        return order == null || students instanceof SortedSet<?> sorted && sorted.comparator() == order;
+    }
+
+    private Access access(Comparator<? super Student> order) {
+        if (index == null) {
+            return new Access(students, null, ordered(students, order));
+        }
+        Access best = null;
+        for (Condition condition : conditions) {
+            Collection<Student> found = index.find(condition.field(), condition.value(), order);
+            if (found != null) {
+                Access access = new Access(found, condition, ordered(found, order));
+                if (best == null || found.size() < best.students().size()
+                        || found.size() == best.students().size() && access.ordered() && !best.ordered()) {
+                    best = access;
+                }
+            }
+        }
+        if (best == null) {
+            Collection<Student> all = index.all(order);
+            best = new Access(all, null, ordered(all, order));
+        }
+        return best;
+    }
+
+    private List<Predicate<? super Student>> filters(Access access) {
+        List<Predicate<? super Student>> filters = new ArrayList<>(conditions.size() + predicates.size());
+        for (Condition condition : conditions) {
+            if (condition != access.condition()) {
+                filters.add(condition);
+            }
+        }
+        filters.addAll(predicates);
+        return filters;
+    }
+
+    private boolean seek(Access access) {
+        return after != null && access.ordered() && access.students() instanceof NavigableSet<?>;
+    }
+
+    private Comparator<? super Student> order() {
+        if (after != null && order == null) {
+            throw new IllegalStateException("Cursor requires order");
+        }
+        return order;
+    }
+
+    private List<Student> execute(Comparator<? super Student> order) {
+        Access access = access(order);
+        Collection<Student> source = access.students();
+        List<Predicate<? super Student>> filters = filters(access);
+        if (seek(access)) {
+            source = ((NavigableSet<Student>) source).tailSet(after, false);
+        } else if (after != null) {
+            Student cursor = after;
+            filters.add(student -> order.compare(student, cursor) > 0);
+        }
+        Predicate<Student> filter = student -> {
+            for (Predicate<? super Student> predicate : filters) {
+                if (!predicate.test(student)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+        if (access.ordered()) {
+            List<Student> result = new ArrayList<>();
+            int skipped = 0;
+            for (Iterator<Student> it = source.iterator(); result.size() < limit && it.hasNext(); ) {
+                Student student = it.next();
+                if (filter.test(student)) {
+                    if (skipped < offset) {
+                        skipped++;
+                    } else {
+                        result.add(student);
+                    }
+                }
+            }
+            return result;
+        }
+        List<Student> selected;
+        if (limit != Integer.MAX_VALUE) {
+            selected = StudentDB.selectFirst(source, filter, order, StudentDB.pageEnd(offset, limit));
+        } else {
+            selected = new ArrayList<>();
+            for (Student student : source) {
+                if (filter.test(student)) {
+                    selected.add(student);
+                }
+            }
+            selected.sort(order);
+        }
+        return offset == 0 ? selected
+                : offset >= selected.size() ? new ArrayList<>() : new ArrayList<>(selected.subList(offset, selected.size()));
+    }
+
+    /**
+     * Returns selected students in query order.
+     */
+    public List<Student> list() {
+        return execute(order());
+    }
+
+    /**
+     * Returns projections of selected students in query order.
+     */
+    public <R> List<R> map(Function<? super Student, ? extends R> mapper) {
+        List<Student> selected = list();
+        List<R> result = new ArrayList<>(selected.size());
+        for (Student student : selected) {
+            result.add(mapper.apply(student));
+        }
+        return result;
+    }
+
+    /**
+     * Returns selected students grouped by {@code classifier}, every group is in query order.
+     */
+    public <K, M extends Map<K, List<Student>>> M groupBy(Function<? super Student, ? extends K> classifier,
+                                                          Supplier<M> mapFactory) {
+        M groups = mapFactory.get();
+        for (Student student : list()) {
+            groups.computeIfAbsent(classifier.apply(student), key -> new ArrayList<>()).add(student);
+        }
+        return groups;
+    }
+
+    private boolean paged() {
+        return after != null || offset != 0 || limit != Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns number of selected students. Order is ignored unless query has cursor, offset or limit.
+     */
+    public int count() {
+        Comparator<? super Student> order = order();
+        if (paged()) {
+            return execute(order).size();
+        }
+        Access access = access(null);
+        List<Predicate<? super Student>> filters = filters(access);
+        if (filters.isEmpty()) {
+            return access.students().size();
+        }
+        int count = 0;
+        for (Student student : access.students()) {
+            if (filters.stream().allMatch(predicate -> predicate.test(student))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns numbers of selected students by {@code classifier}.
+     * Order is ignored unless query has cursor, offset or limit.
+     */
+    public <K> Map<K, Integer> countBy(Function<? super Student, ? extends K> classifier) {
+        Map<K, Integer> counts = new HashMap<>();
+        for (Student student : execute(paged() ? order() : null)) {
+            counts.merge(classifier.apply(student), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * Returns plan that {@link #list()} would execute.
+     */
+    public Plan explain() {
+        Comparator<? super Student> order = order();
+        Access access = access(order);
+        String source = index == null ? "scan" : access.condition() == null ? "index scan" : "index " + access.condition();
+        List<String> filters = new ArrayList<>();
+        for (Predicate<? super Student> filter : filters(access)) {
+            filters.add(filter instanceof Condition ? filter.toString() : "predicate");
+        }
+        if (seek(access)) {
+            source += " from cursor";
+        } else if (after != null) {
+            filters.add("after cursor");
+        }
+        String sort = order == null ? "unordered"
+                : access.ordered() ? "index order"
+                : limit != Integer.MAX_VALUE ? "top " + StudentDB.pageEnd(offset, limit) + " by heap"
+                : "sort";
+        return new Plan(source, filters, sort, offset, limit);
+    }
+}
@@ -0,0 +1,89 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.student.ColumnarStudentDB;
+import info.kgeorgiy.ja.zakharov.student.IndexedStudentDB;
+import info.kgeorgiy.ja.zakharov.student.StudentDB;
+import info.kgeorgiy.java.advanced.student.AdvancedQuery;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Command-line benchmark of heap retained by students stored in different ways and of throughput of search
+ * among all of them by {@link AdvancedQuery#findStudentsByFirstName}, that scans them unless they are indexed.
+ * Students loaded from files have own strings of names, so list of such students is measured together with list
+ * of students with names shared, as {@link StudentGenerator} creates them.
+ */
+public class FootprintBenchmark {
+    private static final String USAGE = "Usage: FootprintBenchmark [students [scans]], e.g. 1000000 20";
+    private static final long SEED = 42;
+
+    private static volatile Object sink;
+
+    /**
+     * Stored students and query over them.
+     */
+    private record Storage(AdvancedQuery database, Collection<Student> students) {
+    }
+
+    private static Map<String, Supplier<Storage>> storages(StudentGenerator generator, int count) {
+        Map<String, Supplier<Storage>> storages = new LinkedHashMap<>();
+        storages.put("List<Student>, own names",
+                () -> new Storage(new StudentDB(), copyNames(generator.generate(count))));
+        storages.put("List<Student>, shared names", () -> new Storage(new StudentDB(), generator.generate(count)));
+        storages.put("IndexedStudentDB", () -> {
+            IndexedStudentDB database = new IndexedStudentDB(generator.generate(count));
+            return new Storage(database, database.students());
+        });
+        storages.put("ColumnarStudentDB", () -> {
+            ColumnarStudentDB database = new ColumnarStudentDB(generator.generate(count));
+            return new Storage(database, database.students());
+        });
+        return storages;
+    }
+
+    private static List<Student> copyNames(List<Student> students) {
+        List<Student> result = new ArrayList<>(students.size());
+        for (Student student : students) {
+            result.add(new Student(student.getId(), new String(student.getFirstName()),
+                    new String(student.getLastName()), student.getGroup()));
+        }
+        return result;
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [students [scans]];
+     *             defaults are {@code 1000000 20}
+     */
+    public static void main(String[] args) {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 2, USAGE);
+        int count = arguments.positive(0, 1_000_000);
+        int scans = arguments.positive(1, 20);
+        if (!arguments.validate()) {
+            return;
+        }
+        StudentGenerator generator = new StudentGenerator(SEED, Math.min(16, GroupName.values().length),
+                1000, 10000, 1.0);
+        String firstName = generator.generate(1).get(0).getFirstName();
+        System.out.printf("%d students, %d scans%n", count, scans);
+        for (Map.Entry<String, Supplier<Storage>> storage : storages(generator, count).entrySet()) {
+            long before = Benchmarks.usedHeap();
+            Storage stored = storage.getValue().get();
+            long retained = Benchmarks.usedHeap() - before;
+            sink = stored.database().findStudentsByFirstName(stored.students(), firstName);
+            long start = System.nanoTime();
+            for (int scan = 0; scan < scans; scan++) {
+                sink = stored.database().findStudentsByFirstName(stored.students(), firstName);
+            }
+            long nanos = System.nanoTime() - start;
+            System.out.printf("  %-30s %12.1f MB %8.1f B/student %14.1f students/s%n", storage.getKey(),
+                    retained / 1e6, (double) retained / count, (double) count * scans * 1e9 / nanos);
+            sink = null;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.student.ColumnarStudentDB;
+import info.kgeorgiy.ja.zakharov.student.StudentLoader;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Command-line benchmark of loading of students by {@link StudentLoader} from delimited text file and from binary
+ * snapshot. Reading of text file line by line into {@code List<Student>} is reported for reference.
+ */
+public class LoaderBenchmark {
+    private static final String USAGE = "Usage: LoaderBenchmark [students [threads]], e.g. 5000000 4";
+    private static final long SEED = 42;
+    private static final char DELIMITER = ';';
+
+    private static volatile Object sink;
+
+    @FunctionalInterface
+    private interface Load {
+        Object run() throws IOException, InterruptedException;
+    }
+
+    private static void write(List<Student> students, Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (Student student : students) {
+                writer.write(student.getId() + ";" + student.getFirstName() + ";" + student.getLastName() + ";"
+                        + student.getGroup().name());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static List<Student> readLines(Path file) throws IOException {
+        List<Student> students = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split(String.valueOf(DELIMITER));
+                students.add(new Student(Integer.parseInt(fields[0]), fields[1], fields[2],
+                        GroupName.valueOf(fields[3])));
+            }
+        }
+        return students;
+    }
+
+    private static void measure(String name, int count, long bytes, Load load)
+            throws IOException, InterruptedException {
+        sink = load.run();
+        long start = System.nanoTime();
+        sink = load.run();
+        long nanos = System.nanoTime() - start;
+        sink = null;
+        System.out.printf("  %-26s %10.1f ms %14.1f rows/s %10.1f MB/s%n",
+                name, nanos / 1e6, count * 1e9 / nanos, bytes * 1e3 / nanos);
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [students [threads]];
+     *             defaults are {@code 5000000} and number of available processors
+     * @throws IOException          if temporary files cannot be written or read
+     * @throws InterruptedException if interrupted while loading
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 2, USAGE);
+        int count = arguments.positive(0, 5_000_000);
+        int threads = arguments.positive(1, Runtime.getRuntime().availableProcessors());
+        if (!arguments.validate()) {
+            return;
+        }
+        Path csv = Files.createTempFile("students", ".csv");
+        Path snapshot = Files.createTempFile("students", ".bin");
+        try {
+            write(new StudentGenerator(SEED, Math.min(16, GroupName.values().length), 1000, 10000, 1.0)
+                    .generate(count), csv);
+            StudentLoader.saveSnapshot(StudentLoader.loadDelimited(csv, DELIMITER, threads), snapshot);
+            long csvSize = Files.size(csv);
+            long snapshotSize = Files.size(snapshot);
+            System.out.printf("%d students, %d threads, CSV %d bytes, snapshot %d bytes%n",
+                    count, threads, csvSize, snapshotSize);
+            measure("CSV, lines to List", count, csvSize, () -> readLines(csv));
+            measure("CSV, 1 thread", count, csvSize, () -> StudentLoader.loadDelimited(csv, DELIMITER, 1));
+            measure("CSV, " + threads + " threads", count, csvSize,
+                    () -> StudentLoader.loadDelimited(csv, DELIMITER, threads));
+            measure("snapshot, load", count, snapshotSize, () -> StudentLoader.loadSnapshot(snapshot));
+            ColumnarStudentDB database = StudentLoader.loadSnapshot(snapshot);
+            measure("snapshot, save", count, snapshotSize, () -> {
+                StudentLoader.saveSnapshot(database, snapshot);
+                return null;
+            });
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+}
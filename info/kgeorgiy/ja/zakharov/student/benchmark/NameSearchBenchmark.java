@@ -0,0 +1,98 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.concurrent.LatencyHistogram;
+import info.kgeorgiy.ja.zakharov.student.IndexedStudentDB;
+import info.kgeorgiy.ja.zakharov.student.NameSearchIndex;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+
+/**
+ * Command-line benchmark of name search of {@link IndexedStudentDB}: time to build its {@link NameSearchIndex},
+ * memory used by index, estimated and retained, and latency of searches, right after build and with students
+ * added since it, that are not indexed yet.
+ */
+public class NameSearchBenchmark {
+    private static final String USAGE =
+            "Usage: NameSearchBenchmark [students [added [searches]]], e.g. 1000000 1000 2000";
+    private static final long SEED = 42;
+    private static final int LIMIT = 20;
+
+    private static volatile Object sink;
+
+    private static List<String> queries(List<Student> students) {
+        Student first = students.get(0);
+        Student second = students.get(students.size() / 2);
+        return List.of(
+                first.getFirstName(),
+                first.getLastName().substring(0, 2),
+                second.getLastName().substring(1, 4),
+                second.getFirstName() + "x",
+                first.getFirstName() + " " + second.getLastName()
+        );
+    }
+
+    private static void build(List<Student> students) {
+        long before = Benchmarks.usedHeap();
+        NameSearchIndex index = new NameSearchIndex(students);
+        long retained = Benchmarks.usedHeap() - before;
+        NameSearchIndex.Stats stats = index.stats();
+        System.out.printf("%d students, %d names, %d tokens, %d trigrams%n",
+                stats.students(), stats.names(), stats.tokens(), stats.grams());
+        System.out.printf("  %-28s %10.1f ms%n", "build", stats.buildNanos() / 1e6);
+        System.out.printf("  %-28s %10.1f MB   %8.1f B/student%n", "memory, estimated",
+                stats.estimatedBytes() / 1e6, (double) stats.estimatedBytes() / students.size());
+        System.out.printf("  %-28s %10.1f MB   %8.1f B/student%n", "memory, retained",
+                retained / 1e6, (double) retained / students.size());
+        sink = index;
+        sink = null;
+    }
+
+    private static void search(String name, IndexedStudentDB database, List<String> queries, int searches) {
+        Collection<Student> students = database.students();
+        for (String query : queries) {
+            sink = database.searchNames(students, query, LIMIT);
+        }
+        LatencyHistogram latency = new LatencyHistogram();
+        for (int search = 0; search < searches; search++) {
+            String query = queries.get(search % queries.size());
+            long start = System.nanoTime();
+            sink = database.searchNames(students, query, LIMIT);
+            latency.record(System.nanoTime() - start);
+        }
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        System.out.printf("  %-28s p50 %10.1f us   p99 %10.1f us   max %10.1f us%n", name,
+                snapshot.percentile(50) / 1e3, snapshot.percentile(99) / 1e3, snapshot.max() / 1e3);
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [students [added [searches]]];
+     *             defaults are {@code 1000000 1000 2000}
+     */
+    public static void main(String[] args) {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 3, USAGE);
+        int count = arguments.positive(0, 1_000_000);
+        int added = arguments.nonNegative(1, 1000);
+        int searches = arguments.positive(2, 2000);
+        if (!arguments.validate()) {
+            return;
+        }
+        List<Student> students = new StudentGenerator(SEED, Math.min(16, GroupName.values().length),
+                1000, 10000, 1.0).generate(count + added);
+        List<Student> initial = students.subList(0, count);
+
+        build(initial);
+        List<String> queries = queries(initial);
+        try (IndexedStudentDB database = new IndexedStudentDB(initial)) {
+            search("search, indexed", database, queries, searches);
+            for (Student student : students.subList(count, count + added)) {
+                database.add(student);
+            }
+            search("search, " + database.nameSearchChanges() + " not indexed", database, queries, searches);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.student.IndexedStudentDB;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Command-line benchmark of read throughput of {@link IndexedStudentDB} under concurrent writes.
+ * Reader threads run indexed queries and name searches on current students, while one writer replaces students
+ * with given rate, each replacement publishes one snapshot. Throughput of readers and achieved rate of writes are reported for every rate.
+ */
+public class SnapshotBenchmark {
+    private static final String USAGE =
+            "Usage: SnapshotBenchmark [size [readers [millis [writes per second]]]], "
+                    + "e.g. 100000 4 2000 0,100,10000,max";
+    private static final long SEED = 42;
+    private static final int LIMIT = 10;
+
+    private static volatile Object sink;
+
+    /**
+     * Measured results of rate.
+     *
+     * @param reads  number of queries done by readers
+     * @param writes number of modifications done by writer
+     * @param nanos  duration of measurement
+     */
+    private record Measurement(long reads, long writes, long nanos) {
+        double readThroughput() {
+            return reads * 1e9 / nanos;
+        }
+
+        double writeThroughput() {
+            return writes * 1e9 / nanos;
+        }
+    }
+
+    private static void read(IndexedStudentDB db, List<String> queries, Random random) {
+        Collection<Student> students = db.students();
+        GroupName group = GroupName.values()[random.nextInt(GroupName.values().length)];
+        sink = switch (random.nextInt(5)) {
+            case 0 -> db.findStudentsByGroup(students, group, 0, LIMIT);
+            case 1 -> db.sortStudentsByName(students, random.nextInt(students.size() + 1), LIMIT);
+            case 2 -> db.getLargestGroup(students);
+            case 3 -> db.searchNames(students, queries.get(random.nextInt(queries.size())), LIMIT);
+            default -> db.getGroupsByName(students, LIMIT);
+        };
+    }
+
+    /**
+     * Returns name search queries: first names and prefixes of last names of some students.
+     */
+    private static List<String> queries(List<Student> students) {
+        List<String> queries = new ArrayList<>();
+        for (Student student : students.subList(0, Math.min(students.size(), 10))) {
+            queries.add(student.getFirstName());
+            queries.add(student.getLastName().substring(0, Math.min(student.getLastName().length(), 3)));
+        }
+        return queries;
+    }
+
+    /**
+     * Replaces random student by its copy in other group, {@code rate} times per second or as fast as possible
+     * if {@code rate} is negative.
+     */
+    private static long write(IndexedStudentDB db, List<Student> students, long rate, AtomicBoolean stop) {
+        Random random = new Random(SEED);
+        GroupName[] groups = GroupName.values();
+        long start = System.nanoTime();
+        long writes = 0;
+        while (!stop.get()) {
+            if (rate == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                continue;
+            }
+            if (rate > 0) {
+                long delay = start + writes * 1_000_000_000 / rate - System.nanoTime();
+                if (delay > 0) {
+                    LockSupport.parkNanos(delay);
+                    continue;
+                }
+            }
+            int index = random.nextInt(students.size());
+            Student student = students.get(index);
+            Student moved = new Student(student.getId(), student.getFirstName(), student.getLastName(),
+                    groups[random.nextInt(groups.length)]);
+            db.replace(moved);
+            students.set(index, moved);
+            writes++;
+        }
+        return writes;
+    }
+
+    private static Measurement measure(IndexedStudentDB db, List<Student> students, List<String> queries,
+                                       int readers, long millis, long rate) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean();
+        LongAdder reads = new LongAdder();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            long seed = SEED + i;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (!stop.get()) {
+                    read(db, queries, random);
+                    reads.increment();
+                }
+            }));
+        }
+        long[] writes = new long[1];
+        Thread writer = new Thread(() -> writes[0] = write(db, students, rate, stop));
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        writer.start();
+        Thread.sleep(millis);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        writer.join();
+        return new Measurement(reads.sum(), writes[0], System.nanoTime() - start);
+    }
+
+    private static long parseRate(String rate) {
+        return "max".equals(rate) ? -1 : Long.parseLong(rate);
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [size [readers [millis per rate
+     *             [comma-separated writes per second or {@code max}]]]];
+     *             defaults are {@code 100000 4 2000 0,100,10000,max}
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 4, USAGE);
+        int size = arguments.positive(0, 100_000);
+        int readers = arguments.positive(1, 4);
+        long millis = arguments.positiveLong(2, 2000);
+        long[] rates = arguments.get(3, "0,100,10000,max",
+                value -> Arrays.stream(value.split(",")).mapToLong(SnapshotBenchmark::parseRate).toArray(),
+                values -> Arrays.stream(values).allMatch(rate -> rate >= -1));
+        if (!arguments.validate()) {
+            return;
+        }
+        StudentGenerator generator = new StudentGenerator(SEED, Math.min(16, GroupName.values().length),
+                1000, 10000, 1.0);
+        List<Student> students = generator.generate(size);
+        List<String> queries = queries(students);
+        try (IndexedStudentDB db = new IndexedStudentDB(students)) {
+            students = new ArrayList<>(students);
+            System.out.printf("%d students, %d readers%n", size, readers);
+            for (long rate : rates) {
+                measure(db, students, queries, readers, millis / 2, rate);
+                Measurement measurement = measure(db, students, queries, readers, millis, rate);
+                System.out.printf("  %10s writes/s: %14.1f reads/s %12.1f writes/s%n",
+                        rate < 0 ? "max" : rate, measurement.readThroughput(), measurement.writeThroughput());
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.ja.zakharov.benchmark.Benchmarks;
+import info.kgeorgiy.ja.zakharov.student.CachingStudentDB;
+import info.kgeorgiy.ja.zakharov.student.ColumnarStudentDB;
+import info.kgeorgiy.ja.zakharov.student.IndexedStudentDB;
+import info.kgeorgiy.ja.zakharov.student.StudentDB;
+import info.kgeorgiy.java.advanced.student.AdvancedQuery;
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Command-line benchmark of every {@link AdvancedQuery} method on students from {@link StudentGenerator}.
+ * Every query is warmed up and then run repeatedly for given time, throughput and bytes allocated
+ * by benchmark thread per operation are reported.
+ * In {@code topk} mode, top-{@value #TOP_K} and paginated queries of {@link StudentDB} are compared with full sorts.
+ */
+public class StudentDBBenchmark {
+    private static final String USAGE =
+            "Usage: StudentDBBenchmark [plain|indexed|columnar|cached [sizes [millis [skew [all|topk]]]]], "
+                    + "e.g. indexed 1000,100000,10000000 1000 1.0 all";
+    private static final int IDS = 100;
+    private static final int TOP_K = 50;
+    private static final long SEED = 42;
+
+    private static volatile Object sink;
+
+    private record Query(String name, Supplier<?> operation) {
+    }
+
+    /**
+     * Measured results of query.
+     *
+     * @param operations     number of measured operations
+     * @param nanos          duration of measurement
+     * @param allocatedBytes bytes allocated by benchmark thread or {@code -1} if JVM doesn't report them
+     */
+    private record Measurement(long operations, long nanos, long allocatedBytes) {
+        double throughput() {
+            return operations * 1e9 / nanos;
+        }
+
+        double allocatedPerOperation() {
+            return allocatedBytes < 0 ? Double.NaN : (double) allocatedBytes / operations;
+        }
+    }
+
+    /**
+     * Database and collection of students to query.
+     */
+    private record Setup(AdvancedQuery database, Collection<Student> students) {
+    }
+
+    private static Setup setup(String engine, List<Student> students) {
+        switch (engine) {
+            case "plain":
+                return new Setup(new StudentDB(), students);
+            case "indexed":
+                IndexedStudentDB indexed = new IndexedStudentDB(students);
+                return new Setup(indexed, indexed.students());
+            case "columnar":
+                ColumnarStudentDB columnar = new ColumnarStudentDB(students);
+                return new Setup(columnar, columnar.students());
+            case "cached":
+                IndexedStudentDB cached = new IndexedStudentDB(students);
+                return new Setup(new CachingStudentDB(cached, 64), cached.students());
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+
+    private static List<Query> queries(AdvancedQuery db, Collection<Student> c, List<Student> list) {
+        Student sample = list.get(0);
+        String firstName = sample.getFirstName();
+        String lastName = sample.getLastName();
+        GroupName group = sample.getGroup();
+        Random random = new Random(SEED);
+        int[] ids = random.ints(IDS, 0, list.size()).map(i -> list.get(i).getId()).toArray();
+        return List.of(
+                new Query("getFirstNames", () -> db.getFirstNames(list)),
+                new Query("getLastNames", () -> db.getLastNames(list)),
+                new Query("getGroups", () -> db.getGroups(list)),
+                new Query("getFullNames", () -> db.getFullNames(list)),
+                new Query("getDistinctFirstNames", () -> db.getDistinctFirstNames(list)),
+                new Query("getMaxStudentFirstName", () -> db.getMaxStudentFirstName(list)),
+                new Query("sortStudentsById", () -> db.sortStudentsById(c)),
+                new Query("sortStudentsByName", () -> db.sortStudentsByName(c)),
+                new Query("findStudentsByFirstName", () -> db.findStudentsByFirstName(c, firstName)),
+                new Query("findStudentsByLastName", () -> db.findStudentsByLastName(c, lastName)),
+                new Query("findStudentsByGroup", () -> db.findStudentsByGroup(c, group)),
+                new Query("findStudentNamesByGroup", () -> db.findStudentNamesByGroup(c, group)),
+                new Query("getGroupsByName", () -> db.getGroupsByName(c)),
+                new Query("getGroupsById", () -> db.getGroupsById(c)),
+                new Query("getLargestGroup", () -> db.getLargestGroup(c)),
+                new Query("getLargestGroupFirstName", () -> db.getLargestGroupFirstName(c)),
+                new Query("getMostPopularName", () -> db.getMostPopularName(c)),
+                new Query("getFirstNamesOfIds", () -> db.getFirstNames(c, ids)),
+                new Query("getLastNamesOfIds", () -> db.getLastNames(c, ids)),
+                new Query("getGroupsOfIds", () -> db.getGroups(c, ids)),
+                new Query("getFullNamesOfIds", () -> db.getFullNames(c, ids))
+        );
+    }
+
+    private static List<Query> topKQueries(AdvancedQuery query, Collection<Student> c, List<Student> list) {
+        if (!(query instanceof StudentDB db)) {
+            throw new IllegalArgumentException("Top-K queries are not supported by " + query.getClass().getSimpleName());
+        }
+        Student sample = list.get(0);
+        String firstName = sample.getFirstName();
+        GroupName group = sample.getGroup();
+        Student cursor = db.sortStudentsByNamePage(c, null, TOP_K).cursor();
+        return List.of(
+                new Query("sortStudentsByName", () -> db.sortStudentsByName(c)),
+                new Query("sortStudentsByName top", () -> db.sortStudentsByName(c, 0, TOP_K)),
+                new Query("sortStudentsByName page 2", () -> db.sortStudentsByNamePage(c, cursor, TOP_K)),
+                new Query("findStudentsByFirstName", () -> db.findStudentsByFirstName(c, firstName)),
+                new Query("findStudentsByFirstName top", () -> db.findStudentsByFirstName(c, firstName, 0, TOP_K)),
+                new Query("findStudentsByGroup", () -> db.findStudentsByGroup(c, group)),
+                new Query("findStudentsByGroup top", () -> db.findStudentsByGroup(c, group, 0, TOP_K)),
+                new Query("getGroupsByName", () -> db.getGroupsByName(c)),
+                new Query("getGroupsByName top", () -> db.getGroupsByName(c, TOP_K))
+        );
+    }
+
+    private static Measurement measure(Query query, long millis) {
+        long duration = millis * 1_000_000;
+        long allocated = Benchmarks.threadAllocatedBytes();
+        long start = System.nanoTime();
+        long operations = 0;
+        long elapsed;
+        do {
+            sink = query.operation().get();
+            operations++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < duration);
+        long allocatedAfter = Benchmarks.threadAllocatedBytes();
+        return new Measurement(operations, elapsed, allocated < 0 ? -1 : allocatedAfter - allocated);
+    }
+
+    /**
+     * Runs benchmark.
+     *
+     * @param args command-line arguments, expected format: [engine [comma-separated sizes [millis per query
+     *             [Zipf skew [queries]]]]]; defaults are {@code plain 1000,100000,10000000 1000 1.0 all}
+     */
+    public static void main(String[] args) {
+        Benchmarks.Arguments arguments = new Benchmarks.Arguments(args, 5, USAGE);
+        String engine = arguments.string(0, "plain");
+        int[] sizes = arguments.get(1, "1000,100000,10000000",
+                value -> Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray(),
+                values -> Arrays.stream(values).allMatch(size -> size > 0));
+        long millis = arguments.positiveLong(2, 1000);
+        double skew = arguments.get(3, "1.0", Double::parseDouble, value -> value >= 0);
+        boolean topK = arguments.get(4, "all", value -> value, value -> value.equals("all") || value.equals("topk"))
+                .equals("topk");
+        if (!arguments.validate()) {
+            return;
+        }
+        StudentGenerator generator = new StudentGenerator(SEED, Math.min(16, GroupName.values().length),
+                1000, 10000, skew);
+        for (int size : sizes) {
+            List<Student> students = generator.generate(size);
+            List<Query> queries;
+            try {
+                Setup setup = setup(engine, students);
+                queries = topK
+                        ? topKQueries(setup.database(), setup.students(), students)
+                        : queries(setup.database(), setup.students(), students);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage() + ". " + USAGE);
+                return;
+            }
+            System.out.printf("%s, %d students%n", engine, size);
+            for (Query query : queries) {
+                measure(query, millis / 2);
+                Measurement measurement = measure(query, millis);
+                System.out.printf("  %-28s %14.1f ops/s %16.1f B/op%n",
+                        query.name(), measurement.throughput(), measurement.allocatedPerOperation());
+            }
+        }
+    }
+}
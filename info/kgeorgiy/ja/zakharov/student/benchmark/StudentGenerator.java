@@ -0,0 +1,103 @@
+package info.kgeorgiy.ja.zakharov.student.benchmark;
+
+import info.kgeorgiy.java.advanced.student.GroupName;
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic students.
+ * Groups, first and last names are chosen by Zipf distribution, so that few names are very popular.
+ * Ids are distinct and shuffled. Same seed and parameters always produce same students.
+ */
+public class StudentGenerator {
+    private static final GroupName[] GROUP_NAMES = GroupName.values();
+    private static final String[] SYLLABLES = {
+            "ka", "lo", "mi", "na", "ro", "se", "ti", "va", "du", "ge", "an", "el", "ik", "or", "us", "ya"
+    };
+
+    private final long seed;
+    private final double[] groups;
+    private final double[] firstNames;
+    private final double[] lastNames;
+
+    /**
+     * Creates generator.
+     *
+     * @param seed       seed of random generator
+     * @param groups     number of distinct groups, at most number of {@link GroupName} values
+     * @param firstNames number of distinct first names
+     * @param lastNames  number of distinct last names
+     * @param skew       Zipf exponent, {@code 0} for uniform distribution
+     */
+    public StudentGenerator(long seed, int groups, int firstNames, int lastNames, double skew) {
+        if (groups <= 0 || groups > GROUP_NAMES.length || firstNames <= 0 || lastNames <= 0 || skew < 0) {
+            throw new IllegalArgumentException("Invalid generator parameters");
+        }
+        this.seed = seed;
+        this.groups = zipf(groups, skew);
+        this.firstNames = zipf(firstNames, skew);
+        this.lastNames = zipf(lastNames, skew);
+    }
+
+    private static double[] zipf(int count, double skew) {
+        double[] cumulative = new double[count];
+        double sum = 0;
+        for (int rank = 0; rank < count; rank++) {
+            sum += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < count; rank++) {
+            cumulative[rank] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int sample(double[] cumulative, Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(rank < 0 ? -rank - 1 : rank, cumulative.length - 1);
+    }
+
+    private static String name(String prefix, int rank) {
+        StringBuilder name = new StringBuilder(prefix);
+        do {
+            name.append(SYLLABLES[rank % SYLLABLES.length]);
+            rank /= SYLLABLES.length;
+        } while (rank > 0);
+        name.setCharAt(prefix.length(), Character.toUpperCase(name.charAt(prefix.length())));
+        return name.toString();
+    }
+
+    /**
+     * Generates {@code count} students.
+     */
+    public List<Student> generate(int count) {
+        Random random = new Random(seed);
+        int[] ids = new int[count];
+        Arrays.setAll(ids, i -> i + 1);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int id = ids[i];
+            ids[i] = ids[j];
+            ids[j] = id;
+        }
+        String[] firstCache = new String[firstNames.length];
+        String[] lastCache = new String[lastNames.length];
+        List<Student> students = new ArrayList<>(count);
+        for (int id : ids) {
+            int first = sample(firstNames, random);
+            int last = sample(lastNames, random);
+            if (firstCache[first] == null) {
+                firstCache[first] = name("", first);
+            }
+            if (lastCache[last] == null) {
+                lastCache[last] = name("", last) + "ov";
+            }
+            students.add(new Student(id, firstCache[first], lastCache[last], GROUP_NAMES[sample(groups, random)]));
+        }
+        return students;
+    }
+}
@@ -1,17 +1,24 @@
 module info.kgeorgiy.ja.zakharov {
     requires info.kgeorgiy.java.advanced.implementor;
     requires java.compiler;
+    requires java.management;
+    requires jdk.management;
     requires info.kgeorgiy.java.advanced.student;
     requires info.kgeorgiy.java.advanced.concurrent;
     requires info.kgeorgiy.java.advanced.mapper;
     requires info.kgeorgiy.java.advanced.crawler;
     requires info.kgeorgiy.java.advanced.hello;
 
+    opens info.kgeorgiy.ja.zakharov.benchmark;
     opens info.kgeorgiy.ja.zakharov.student;
+    opens info.kgeorgiy.ja.zakharov.student.benchmark;
     opens info.kgeorgiy.ja.zakharov.implementor;
+    opens info.kgeorgiy.ja.zakharov.implementor.benchmark;
     opens info.kgeorgiy.ja.zakharov.arrayset;
     opens info.kgeorgiy.ja.zakharov.walk;
     opens info.kgeorgiy.ja.zakharov.concurrent;
+    opens info.kgeorgiy.ja.zakharov.concurrent.benchmark;
     opens info.kgeorgiy.ja.zakharov.crawler;
+    opens info.kgeorgiy.ja.zakharov.crawler.benchmark;
     opens info.kgeorgiy.ja.zakharov.hello;
 }